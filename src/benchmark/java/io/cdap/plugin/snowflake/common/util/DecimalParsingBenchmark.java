@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link DecimalParser} with {@link BigDecimal} based decoding on money columns, e.g. NUMBER(18,2).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DecimalParsingBenchmark {
+  private static final int VALUES = 1024;
+
+  @Param({"18"})
+  public int precision;
+
+  @Param({"2"})
+  public int scale;
+
+  private String[] values;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    values = new String[VALUES];
+    for (int i = 0; i < VALUES; i++) {
+      // amounts of various magnitude, up to the column precision
+      int digits = 1 + random.nextInt(precision);
+      StringBuilder builder = new StringBuilder(random.nextInt(4) == 0 ? "-" : "");
+      builder.append(1 + random.nextInt(9));
+      for (int j = 1; j < digits; j++) {
+        builder.append(random.nextInt(10));
+      }
+      if (scale > 0) {
+        builder.insert(Math.max(builder.length() - scale, 1), '.');
+      }
+      values[i] = builder.toString();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(VALUES)
+  public void decimalParser(Blackhole blackhole) {
+    for (String value : values) {
+      blackhole.consume(DecimalParser.parseUnscaledBytes(value, scale));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(VALUES)
+  public void bigDecimal(Blackhole blackhole) {
+    for (String value : values) {
+      blackhole.consume(new BigDecimal(value).setScale(scale).unscaledValue().toByteArray());
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import au.com.bytecode.opencsv.CSVReader;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compares {@link CSVTokenizer} with opencsv and commons-csv on files unloaded by the batch source.
+ *
+ * The staged file is decompressed once during setup, so that only parsing is measured. If no file is given,
+ * a synthetic file in the COPY INTO format is generated.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CSVParsingBenchmark {
+  private static final int GENERATED_ROWS = 100_000;
+
+  /**
+   * Path to a gzip file downloaded from the Snowflake stage.
+   */
+  @Param("")
+  public String stagedFile;
+
+  /**
+   * Every n-th field is materialized, 1 means all fields are read.
+   */
+  @Param({"1", "10"})
+  public int fieldStep;
+
+  private byte[] data;
+
+  @Setup
+  public void setup() throws IOException {
+    if (stagedFile.isEmpty()) {
+      data = generate();
+      return;
+    }
+    try (InputStream inputStream = new GZIPInputStream(Files.newInputStream(Paths.get(stagedFile)))) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      byte[] chunk = new byte[64 * 1024];
+      int read;
+      while ((read = inputStream.read(chunk)) > 0) {
+        outputStream.write(chunk, 0, read);
+      }
+      data = outputStream.toByteArray();
+    }
+  }
+
+  @Benchmark
+  public void tokenizer(Blackhole blackhole) throws IOException {
+    try (CSVTokenizer tokenizer = new CSVTokenizer(new ByteArrayInputStream(data))) {
+      while (tokenizer.nextRecord()) {
+        for (int i = 0; i < tokenizer.getFieldCount(); i += fieldStep) {
+          blackhole.consume(tokenizer.getString(i));
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void opencsv(Blackhole blackhole) throws IOException {
+    try (CSVReader reader = new CSVReader(
+      new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8))) {
+      String[] line;
+      while ((line = reader.readNext()) != null) {
+        for (int i = 0; i < line.length; i += fieldStep) {
+          blackhole.consume(line[i]);
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void commonsCsv(Blackhole blackhole) throws IOException {
+    try (CSVParser parser = CSVFormat.DEFAULT.parse(
+      new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8))) {
+      for (CSVRecord record : parser) {
+        for (int i = 0; i < record.size(); i += fieldStep) {
+          blackhole.consume(record.get(i));
+        }
+      }
+    }
+  }
+
+  /**
+   * Generates rows resembling a wide fact table: numbers, enclosed strings, NULLs and temporal values.
+   */
+  private static byte[] generate() {
+    StringBuilder builder = new StringBuilder();
+    for (int column = 0; column < 40; column++) {
+      builder.append(column > 0 ? "," : "").append("COLUMN_").append(column);
+    }
+    builder.append('\n');
+    for (int row = 0; row < GENERATED_ROWS; row++) {
+      for (int group = 0; group < 8; group++) {
+        builder.append(group > 0 ? "," : "")
+          .append(row).append(',')
+          .append(row % 100_000).append('.').append(row % 100).append(',')
+          .append("\"customer \"\"").append(row).append("\"\", Ünïcode\"").append(',')
+          .append(row % 7 == 0 ? "" : "2020-01-15T10:20:30.123456+02:00").append(',')
+          .append("\"\"");
+      }
+      builder.append('\n');
+    }
+    return builder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
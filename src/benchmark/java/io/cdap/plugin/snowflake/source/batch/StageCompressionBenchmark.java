@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures decompression throughput of CSV stage files per {@link StageCompression}.
+ *
+ * The {@code uncompressed} counter is the decompression throughput in bytes per second and the {@code compressed}
+ * counter the rate of bytes downloaded from the stage to sustain it; both file sizes are printed during setup.
+ * Files are compressed during setup, unless {@code compressedFile} is given, e.g. a file staged by Snowflake.
+ * There is no Java encoder for BROTLI, so it can only be measured on such a file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class StageCompressionBenchmark {
+  private static final int GENERATED_ROWS = 100_000;
+
+  @Param({"GZIP", "ZSTD", "DEFLATE", "RAW_DEFLATE", "NONE"})
+  public StageCompression compression;
+
+  /**
+   * Path to a stage file compressed with the benchmarked codec.
+   */
+  @Param("")
+  public String compressedFile;
+
+  private byte[] compressed;
+  private final byte[] buffer = new byte[64 * 1024];
+
+  @Setup
+  public void setup() throws IOException {
+    if (!compressedFile.isEmpty()) {
+      compressed = Files.readAllBytes(Paths.get(compressedFile));
+      return;
+    }
+    byte[] data = generate();
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (OutputStream stream = compress(outputStream)) {
+      stream.write(data);
+    }
+    compressed = outputStream.toByteArray();
+    System.out.printf("%n%s: %d bytes compressed into %d bytes%n", compression, data.length, compressed.length);
+  }
+
+  @Benchmark
+  public void decompress(Bytes bytes) throws IOException {
+    try (InputStream stream = compression.decompress(new ByteArrayInputStream(compressed))) {
+      int read;
+      while ((read = stream.read(buffer)) > 0) {
+        bytes.uncompressed += read;
+      }
+    }
+    bytes.compressed += compressed.length;
+  }
+
+  /**
+   * Bytes processed by the benchmark, reported as rates.
+   */
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Bytes {
+    public long uncompressed;
+    public long compressed;
+  }
+
+  private OutputStream compress(OutputStream outputStream) throws IOException {
+    switch (compression) {
+      case GZIP:
+        return new GZIPOutputStream(outputStream);
+      case ZSTD:
+        return new ZstdOutputStream(outputStream);
+      case DEFLATE:
+        return new DeflaterOutputStream(outputStream);
+      case RAW_DEFLATE:
+        return new DeflaterOutputStream(outputStream, new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+      case NONE:
+        return outputStream;
+      default:
+        throw new IllegalArgumentException(
+          String.format("%s cannot be compressed in Java, set 'compressedFile' to a compressed stage file.",
+                        compression));
+    }
+  }
+
+  /**
+   * Generates rows in the COPY INTO format: numbers, enclosed strings, NULLs and temporal values.
+   */
+  private static byte[] generate() {
+    StringBuilder builder = new StringBuilder("ID,AMOUNT,CUSTOMER,CREATED_AT,COMMENT\n");
+    for (int row = 0; row < GENERATED_ROWS; row++) {
+      builder.append(row).append(',')
+        .append(row % 100_000).append('.').append(row % 100).append(',')
+        .append("\"customer \"\"").append(row % 5000).append("\"\", Ünïcode\"").append(',')
+        .append(row % 7 == 0 ? "" : "2020-01-15T10:20:30.123456+02:00").append(',')
+        .append("\"\"").append('\n');
+    }
+    return builder.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares reading the same rows from CSV and Parquet stage files into records, including decompression.
+ *
+ * Scores are CPU time per row. Sizes of the generated files, which are the bytes downloaded from the stage,
+ * are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class StageFormatBenchmark {
+  private static final int ROWS = 100_000;
+  private static final DateTimeFormatter TIMESTAMP_FORMAT =
+    DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSxxx").withZone(ZoneOffset.UTC);
+  private static final MessageType PARQUET_SCHEMA = MessageTypeParser.parseMessageType(
+    "message schema {\n" +
+      "  optional int64 ID (DECIMAL(18,0));\n" +
+      "  optional int64 AMOUNT (DECIMAL(18,2));\n" +
+      "  optional binary CUSTOMER (UTF8);\n" +
+      "  optional binary STATUS (UTF8);\n" +
+      "  optional boolean ACTIVE;\n" +
+      "  optional int32 ORDER_DATE (DATE);\n" +
+      "  optional int64 CREATED_AT;\n" +
+      "}");
+  private static final Schema SCHEMA = Schema.recordOf(
+    "output",
+    Schema.Field.of("ID", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+    Schema.Field.of("AMOUNT", Schema.nullableOf(Schema.decimalOf(18, 2))),
+    Schema.Field.of("CUSTOMER", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("STATUS", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("ACTIVE", Schema.nullableOf(Schema.of(Schema.Type.BOOLEAN))),
+    Schema.Field.of("ORDER_DATE", Schema.nullableOf(Schema.of(Schema.LogicalType.DATE))),
+    Schema.Field.of("CREATED_AT", Schema.nullableOf(Schema.of(Schema.LogicalType.TIMESTAMP_MICROS))));
+  private static final String[] STATUSES = {"NEW", "SHIPPED", "DELIVERED", "RETURNED"};
+
+  private byte[] csvFile;
+  private byte[] parquetFile;
+
+  @Setup
+  public void setup() throws IOException {
+    SimpleGroupFactory factory = new SimpleGroupFactory(PARQUET_SCHEMA);
+    List<Group> rows = new ArrayList<>(ROWS);
+    ByteArrayOutputStream csv = new ByteArrayOutputStream();
+    try (OutputStream outputStream = new GZIPOutputStream(csv)) {
+      StringBuilder builder = new StringBuilder("ID,AMOUNT,CUSTOMER,STATUS,ACTIVE,ORDER_DATE,CREATED_AT\n");
+      for (int i = 0; i < ROWS; i++) {
+        long amount = (i * 7919L) % 10_000_000;
+        String customer = "customer \"" + i % 5000 + "\", Ünïcode";
+        String status = STATUSES[i % STATUSES.length];
+        LocalDate orderDate = LocalDate.of(2020, 1, 1).plusDays(i % 365);
+        long createdAtNanos = TimeUnit.SECONDS.toNanos(1577836800L + i * 37L) + (i % 1000) * 1000L;
+        rows.add(factory.newGroup()
+                   .append("ID", (long) i)
+                   .append("AMOUNT", amount)
+                   .append("CUSTOMER", customer)
+                   .append("STATUS", status)
+                   .append("ACTIVE", i % 2 == 0)
+                   .append("ORDER_DATE", (int) orderDate.toEpochDay())
+                   .append("CREATED_AT", createdAtNanos));
+        builder.append(i).append(',')
+          .append(amount / 100).append('.').append(String.format("%02d", amount % 100)).append(',')
+          .append('"').append(customer.replace("\"", "\"\"")).append('"').append(',')
+          .append(status).append(',')
+          .append(i % 2 == 0).append(',')
+          .append(orderDate).append(',')
+          .append(TIMESTAMP_FORMAT.format(Instant.ofEpochSecond(0, createdAtNanos))).append('\n');
+      }
+      outputStream.write(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    csvFile = csv.toByteArray();
+    parquetFile = ParquetTestFiles.write(PARQUET_SCHEMA, CompressionCodecName.SNAPPY, rows);
+    System.out.printf("%nStage file sizes for %d rows: CSV (gzip) %d bytes, Parquet (snappy) %d bytes%n",
+                      ROWS, csvFile.length, parquetFile.length);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void csv(Blackhole blackhole) throws IOException {
+    SnowflakeMapToRecordTransformer transformer = new SnowflakeMapToRecordTransformer(SCHEMA);
+    try (CSVTokenizer tokenizer = new CSVTokenizer(new GZIPInputStream(new ByteArrayInputStream(csvFile)))) {
+      SnowflakeRow row = new SnowflakeRow(tokenizer.readRecord(), tokenizer::getString);
+      while (tokenizer.nextRecord()) {
+        blackhole.consume(transformer.transform(row));
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void parquet(Blackhole blackhole) throws IOException {
+    try (ParquetStageFileReader reader = new ParquetStageFileReader(new InMemoryInputFile(parquetFile), SCHEMA)) {
+      StructuredRecord record;
+      while ((record = reader.next()) != null) {
+        blackhole.consume(record);
+      }
+    }
+  }
+}
@@ -50,7 +50,7 @@ public class RunSQLAction extends Action {
     collector.getOrThrowException();
 
     SnowflakeAccessor snowflakeAccessor = new SnowflakeAccessor(config);
-    snowflakeAccessor.runSQL(config.getQuery());
+    snowflakeAccessor.runSQLInNewSession(config.getQuery());
   }
 
   @Override
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Process-wide cache of OAuth2 access tokens, keyed by account, client and refresh token.
+ *
+ * Tokens are refreshed ahead of their expiry. Only one thread per key requests new token, other threads keep using
+ * the current token while it is still valid, or wait for the refresh otherwise. All requests share one pooled
+ * HTTP client.
+ */
+public class OAuthTokenCache {
+  private static final long REFRESH_AHEAD_MILLIS = TimeUnit.MINUTES.toMillis(1);
+  private static final int HTTP_TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(30);
+  private static final CloseableHttpClient HTTP_CLIENT = HttpClients.custom()
+    .setDefaultRequestConfig(RequestConfig.custom()
+                               .setConnectTimeout(HTTP_TIMEOUT_MILLIS)
+                               .setConnectionRequestTimeout(HTTP_TIMEOUT_MILLIS)
+                               .setSocketTimeout(HTTP_TIMEOUT_MILLIS)
+                               .build())
+    .build();
+  private static final OAuthTokenCache INSTANCE =
+    new OAuthTokenCache(config -> OAuthUtil.requestAccessToken(HTTP_CLIENT, config), System::currentTimeMillis);
+
+  private final ConcurrentMap<List<String>, TokenHolder> tokens = new ConcurrentHashMap<>();
+  private final Function<BaseSnowflakeConfig, OAuthUtil.AccessToken> tokenLoader;
+  private final LongSupplier clock;
+
+  OAuthTokenCache(Function<BaseSnowflakeConfig, OAuthUtil.AccessToken> tokenLoader, LongSupplier clock) {
+    this.tokenLoader = tokenLoader;
+    this.clock = clock;
+  }
+
+  /**
+   * @param config config with account name, client credentials and refresh token.
+   * @return valid access token, requesting new one only if the cached token is missing or about to expire.
+   */
+  public static String getAccessToken(BaseSnowflakeConfig config) {
+    return INSTANCE.get(config);
+  }
+
+  String get(BaseSnowflakeConfig config) {
+    List<String> key = Arrays.asList(config.getAccountName(), config.getClientId(), config.getClientSecret(),
+                                     config.getRefreshToken());
+    return tokens.computeIfAbsent(key, k -> new TokenHolder()).get(config);
+  }
+
+  /**
+   * Holds token for one key and serializes its refreshes.
+   */
+  private final class TokenHolder {
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile CachedToken token;
+
+    private String get(BaseSnowflakeConfig config) {
+      CachedToken current = token;
+      if (current != null && clock.getAsLong() < current.refreshAt) {
+        return current.value;
+      }
+      if (current != null && clock.getAsLong() < current.expiresAt) {
+        // another thread is refreshing, keep using the current token while it is valid
+        if (!refreshLock.tryLock()) {
+          return current.value;
+        }
+      } else {
+        refreshLock.lock();
+      }
+      try {
+        current = token;
+        long now = clock.getAsLong();
+        if (current != null && now < current.refreshAt) {
+          return current.value;
+        }
+        OAuthUtil.AccessToken accessToken = tokenLoader.apply(config);
+        long lifetimeMillis = TimeUnit.SECONDS.toMillis(accessToken.getExpiresInSeconds());
+        // refresh one minute ahead, or halfway for tokens with short lifetime
+        long refreshAfterMillis = Math.max(lifetimeMillis - REFRESH_AHEAD_MILLIS, lifetimeMillis / 2);
+        token = new CachedToken(accessToken.getToken(), now + refreshAfterMillis, now + lifetimeMillis);
+        return accessToken.getToken();
+      } finally {
+        refreshLock.unlock();
+      }
+    }
+  }
+
+  private static final class CachedToken {
+    private final String value;
+    private final long refreshAt;
+    private final long expiresAt;
+
+    private CachedToken(String value, long refreshAt, long expiresAt) {
+      this.value = value;
+      this.refreshAt = refreshAt;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -17,6 +17,7 @@
 package io.cdap.plugin.snowflake.common;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
 import io.cdap.plugin.snowflake.common.exception.ConnectionTimeoutException;
@@ -37,10 +38,23 @@ import java.util.Base64;
  */
 public class OAuthUtil {
 
+  // Snowflake access tokens are valid for 10 minutes, used if the response has no 'expires_in'
+  private static final long DEFAULT_EXPIRES_IN_SECONDS = 600;
   private static final JsonParser parser = new JsonParser();
 
   public static String getAccessTokenByRefreshToken(CloseableHttpClient httpclient,
                                                     BaseSnowflakeConfig config) {
+    return requestAccessToken(httpclient, config).getToken();
+  }
+
+  /**
+   * Requests new access token using the refresh token of the config.
+   *
+   * @param httpclient client used for the token request, it is not closed.
+   * @param config config with account name, client credentials and refresh token.
+   * @return access token with its lifetime.
+   */
+  public static AccessToken requestAccessToken(CloseableHttpClient httpclient, BaseSnowflakeConfig config) {
     try {
       String tokenUrl = String.format("https://%s.snowflakecomputing.com/oauth/token-request",
                                       config.getAccountName());
@@ -60,14 +74,23 @@ public class OAuthUtil {
       httppost.setHeader("Authorization", String.format("Basic %s", encondedAuthorization));
 
 
-      CloseableHttpResponse response = httpclient.execute(httppost);
-      String responseString = EntityUtils.toString(response.getEntity(), "UTF-8");
+      String responseString;
+      try (CloseableHttpResponse response = httpclient.execute(httppost)) {
+        responseString = EntityUtils.toString(response.getEntity(), "UTF-8");
+      }
 
       JsonElement jsonElement = null;
+      long expiresInSeconds = DEFAULT_EXPIRES_IN_SECONDS;
       try {
-        jsonElement = parser.parse(responseString).getAsJsonObject().get("access_token");
-      } catch (JsonSyntaxException ex) {
-        // this will be handled below
+        JsonObject jsonObject = parser.parse(responseString).getAsJsonObject();
+        jsonElement = jsonObject.get("access_token");
+        JsonElement expiresIn = jsonObject.get("expires_in");
+        if (expiresIn != null && !expiresIn.isJsonNull()) {
+          expiresInSeconds = expiresIn.getAsLong();
+        }
+      } catch (JsonSyntaxException | IllegalStateException | ClassCastException | NumberFormatException |
+        UnsupportedOperationException ex) {
+        // this will be handled below, a malformed 'expires_in' falls back to the default lifetime
       }
 
       // if exception happened during parsing OR if json does not contain 'access_token' key.
@@ -75,11 +98,32 @@ public class OAuthUtil {
         throw new RuntimeException(String.format("Unexpected response '%s' from '%s'", responseString, uri.toString()));
       }
 
-      return jsonElement.getAsString();
+      return new AccessToken(jsonElement.getAsString(), expiresInSeconds);
     } catch (URISyntaxException e) {
       throw new IllegalArgumentException("Failed to build token URI for OAuth2.", e);
     } catch (IOException e) {
       throw new ConnectionTimeoutException("Failed to get refresh token for OAuth2.", e);
     }
   }
+
+  /**
+   * Access token together with its lifetime.
+   */
+  public static class AccessToken {
+    private final String token;
+    private final long expiresInSeconds;
+
+    public AccessToken(String token, long expiresInSeconds) {
+      this.token = token;
+      this.expiresInSeconds = expiresInSeconds;
+    }
+
+    public String getToken() {
+      return token;
+    }
+
+    public long getExpiresInSeconds() {
+      return expiresInSeconds;
+    }
+  }
 }
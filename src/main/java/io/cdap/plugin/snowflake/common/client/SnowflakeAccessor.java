@@ -20,80 +20,167 @@ import com.google.common.base.Strings;
 import io.cdap.cdap.api.dataset.lib.KeyValue;
 import io.cdap.plugin.common.KeyValueListParser;
 import io.cdap.plugin.snowflake.common.BaseSnowflakeConfig;
-import io.cdap.plugin.snowflake.common.OAuthUtil;
+import io.cdap.plugin.snowflake.common.OAuthTokenCache;
 import io.cdap.plugin.snowflake.common.exception.ConnectionTimeoutException;
+import io.cdap.plugin.snowflake.common.util.PrivateKeyUtil;
 import io.cdap.plugin.snowflake.common.util.QueryUtil;
 import net.snowflake.client.jdbc.SnowflakeBasicDataSource;
-import org.apache.http.impl.client.HttpClients;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.Properties;
+import javax.annotation.Nullable;
 
 /**
  * A class which accesses Snowflake API.
  */
 public class SnowflakeAccessor {
+  private static final Logger LOG = LoggerFactory.getLogger(SnowflakeAccessor.class);
   private static final String APPLICATION_NAME = "CDAP";
+  private static final String PROPERTY_APPLICATION = "application";
+  private static final String PROPERTY_CLIENT_SESSION_KEEP_ALIVE = "CLIENT_SESSION_KEEP_ALIVE";
   private static final int LIMIT_ROWS = 1;
 
   private final BaseSnowflakeConfig config;
-  protected final SnowflakeBasicDataSource dataSource;
+  private final SnowflakeConnectionPool connectionPool;
 
   public SnowflakeAccessor(BaseSnowflakeConfig config) {
     this.config = config;
-    this.dataSource = new SnowflakeBasicDataSource();
-    initDataSource(dataSource, config);
+    this.connectionPool = SnowflakeConnectionPool.getPool(getPoolKey(config), () -> createDataSource(config));
+  }
+
+  /**
+   * Borrows connection from the pool shared by accessors with the same connection settings. Closing the connection
+   * returns it to the pool, so the session state must not be changed.
+   *
+   * @return pooled connection.
+   * @throws SQLException if connection cannot be established.
+   */
+  protected Connection getConnection() throws SQLException {
+    return connectionPool.getConnection();
+  }
+
+  /**
+   * Opens connection in a new session, which is not shared and is closed by the caller. Should be used when the
+   * session state is changed, e.g. by USE or ALTER SESSION.
+   *
+   * @return connection.
+   * @throws SQLException if connection cannot be established.
+   */
+  protected Connection openConnection() throws SQLException {
+    return connectionPool.openConnection();
   }
 
   public void runSQL(String query) throws IOException {
-    try (Connection connection = dataSource.getConnection();
-         PreparedStatement populateStmt = connection.prepareStatement(query);) {
-      populateStmt.execute();
+    try (Connection connection = getConnection()) {
+      execute(connection, query);
+    } catch (SQLException e) {
+      throw new IOException(String.format("Statement '%s' failed due to '%s'", query, e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Runs arbitrary statement in a new session, which is closed afterwards. Should be used for statements which may
+   * change the session state, e.g. USE or ALTER SESSION.
+   *
+   * @param query statement to execute.
+   * @throws IOException thrown if the statement fails.
+   */
+  public void runSQLInNewSession(String query) throws IOException {
+    try (Connection connection = openConnection()) {
+      execute(connection, query);
     } catch (SQLException e) {
       throw new IOException(String.format("Statement '%s' failed due to '%s'", query, e.getMessage()), e);
     }
+  }
 
+  private static void execute(Connection connection, String query) throws SQLException {
+    try (PreparedStatement populateStmt = connection.prepareStatement(query)) {
+      populateStmt.execute();
+    }
   }
 
   /**
-   * Returns field descriptors for specified import query.
+   * Returns field descriptors for specified import query. Results are cached in {@link SnowflakeMetadataCache}.
+   * Column metadata is taken from the prepared statement, which is only compiled by Snowflake. If it is not
+   * available, the query is executed with a limit of one row.
    *
    * @return List of field descriptors.
    * @throws IOException thrown if there are any issue with the I/O operations.
    */
   public List<SnowflakeFieldDescriptor> describeQuery(String query) throws IOException {
-    String importQuery = QueryUtil.limitQuery(query, LIMIT_ROWS);
-    List<SnowflakeFieldDescriptor> fieldDescriptors = new ArrayList<>();
+    String cacheKey = SnowflakeMetadataCache.getKey(config, query);
+    List<SnowflakeFieldDescriptor> fieldDescriptors = SnowflakeMetadataCache.getInstance().get(cacheKey);
+    if (fieldDescriptors == null) {
+      fieldDescriptors = describeQueryUncached(query);
+      SnowflakeMetadataCache.getInstance().put(cacheKey, fieldDescriptors);
+    }
+    return fieldDescriptors;
+  }
+
+  /**
+   * Removes cached description of the query, so that the next {@link #describeQuery(String)} queries Snowflake.
+   */
+  public void invalidateDescribedQuery(String query) {
+    SnowflakeMetadataCache.getInstance().invalidate(SnowflakeMetadataCache.getKey(config, query));
+  }
 
-    try (Connection connection = dataSource.getConnection();
-         PreparedStatement preparedStatement = connection.prepareStatement(importQuery);
-         ResultSet resultSet = preparedStatement.executeQuery()) {
-      ResultSetMetaData metaData = resultSet.getMetaData();
-      int columnCount = metaData.getColumnCount();
-      for (int i = 1; i <= columnCount; i++) {
-        String name = metaData.getColumnName(i);
-        int type = metaData.getColumnType(i);
-        boolean nullable = metaData.isNullable(i) == ResultSetMetaData.columnNullable;
-        fieldDescriptors.add(new SnowflakeFieldDescriptor(name, type, nullable));
+  private List<SnowflakeFieldDescriptor> describeQueryUncached(String query) throws IOException {
+    long startTime = System.currentTimeMillis();
+    try (Connection connection = getConnection()) {
+      try (PreparedStatement preparedStatement = connection.prepareStatement(query)) {
+        ResultSetMetaData metaData = preparedStatement.getMetaData();
+        if (metaData != null && metaData.getColumnCount() > 0) {
+          LOG.info("Described import query in {} ms without executing it.", System.currentTimeMillis() - startTime);
+          return getFieldDescriptors(metaData);
+        }
+      } catch (SQLException e) {
+        LOG.debug("Cannot describe import query without executing it, falling back to limit query.", e);
+      }
+
+      String importQuery = QueryUtil.limitQuery(query, LIMIT_ROWS);
+      try (PreparedStatement preparedStatement = connection.prepareStatement(importQuery);
+           ResultSet resultSet = preparedStatement.executeQuery()) {
+        List<SnowflakeFieldDescriptor> fieldDescriptors = getFieldDescriptors(resultSet.getMetaData());
+        LOG.info("Described import query in {} ms by executing it with limit {}.",
+                 System.currentTimeMillis() - startTime, LIMIT_ROWS);
+        return fieldDescriptors;
       }
     } catch (SQLException e) {
       throw new IOException(e);
     }
+  }
+
+  private static List<SnowflakeFieldDescriptor> getFieldDescriptors(ResultSetMetaData metaData) throws SQLException {
+    List<SnowflakeFieldDescriptor> fieldDescriptors = new ArrayList<>();
+    int columnCount = metaData.getColumnCount();
+    for (int i = 1; i <= columnCount; i++) {
+      String name = metaData.getColumnName(i);
+      int type = metaData.getColumnType(i);
+      boolean nullable = metaData.isNullable(i) == ResultSetMetaData.columnNullable;
+      int precision = metaData.getPrecision(i);
+      int scale = metaData.getScale(i);
+      fieldDescriptors.add(new SnowflakeFieldDescriptor(name, type, nullable, precision, scale));
+    }
     return fieldDescriptors;
   }
 
-  private void initDataSource(SnowflakeBasicDataSource dataSource, BaseSnowflakeConfig config) {
+  private static SnowflakeBasicDataSource createDataSource(BaseSnowflakeConfig config) {
+    SnowflakeBasicDataSource dataSource = new SnowflakeBasicDataSource();
     dataSource.setDatabaseName(config.getDatabase());
     dataSource.setSchema(config.getSchemaName());
     dataSource.setUrl(String.format("jdbc:snowflake://%s.snowflakecomputing.com", config.getAccountName()));
@@ -109,24 +196,39 @@ public class SnowflakeAccessor {
     }
 
     if (config.getOauth2Enabled()) {
-      String accessToken = OAuthUtil.getAccessTokenByRefreshToken(HttpClients.createDefault(), config);
+      String accessToken = OAuthTokenCache.getAccessToken(config);
       dataSource.setOauthToken(accessToken);
     } else if (config.getKeyPairEnabled()) {
       dataSource.setUser(config.getUsername());
 
-      String privateKeyPath = writeTextToTmpFile(config.getPrivateKey());
       try {
-        dataSource.setPrivateKeyFile(privateKeyPath, config.getPassphrase());
-      } finally {
-        new File(privateKeyPath).deleteOnExit();
+        dataSource.setPrivateKey(PrivateKeyUtil.getPrivateKey(config.getPrivateKey(), config.getPassphrase()));
+      } catch (IllegalArgumentException e) {
+        throw new ConnectionTimeoutException("Cannot create Snowflake connection.", e);
       }
     } else {
       dataSource.setUser(config.getUsername());
       dataSource.setPassword(config.getPassword());
     }
-    String connectionArguments = config.getConnectionArguments();
-    if (!Strings.isNullOrEmpty(connectionArguments)) {
-      addConnectionArguments(dataSource, connectionArguments);
+    addConnectionArguments(dataSource, config.getConnectionArguments());
+    return dataSource;
+  }
+
+  /**
+   * @return key identifying connection settings of the config, accessors with the same key share connections.
+   */
+  private static String getPoolKey(BaseSnowflakeConfig config) {
+    List<Object> settings = Arrays.asList(
+      config.getAccountName(), config.getDatabase(), config.getSchemaName(), config.getWarehouse(), config.getRole(),
+      config.getUsername(), config.getPassword(), config.getKeyPairEnabled(), config.getPrivateKey(),
+      config.getPassphrase(), config.getOauth2Enabled(), config.getClientId(), config.getClientSecret(),
+      config.getRefreshToken(), config.getConnectionArguments());
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(settings.toString().getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported.", e);
     }
   }
 
@@ -135,40 +237,31 @@ public class SnowflakeAccessor {
    * of exception would be generated {@link ConnectionTimeoutException}
    */
   public void checkConnection() {
-    try (Connection connection = dataSource.getConnection()) {
+    try (Connection connection = getConnection()) {
       connection.getMetaData();
     } catch (SQLException e) {
       throw new ConnectionTimeoutException("Cannot create Snowflake connection.", e);
     }
   }
   // SnowflakeBasicDataSource doesn't provide access for additional properties.
-  private void addConnectionArguments(SnowflakeBasicDataSource dataSource, String connectionArguments) {
+  private static void addConnectionArguments(SnowflakeBasicDataSource dataSource,
+                                             @Nullable String connectionArguments) {
     try {
       Class<? extends SnowflakeBasicDataSource> dataSourceClass = dataSource.getClass();
       Field propertiesField = dataSourceClass.getDeclaredField("properties");
       propertiesField.setAccessible(true);
       Properties properties = (Properties) propertiesField.get(dataSource);
-      for (KeyValue<String, String> argument : KeyValueListParser.DEFAULT.parse(connectionArguments)) {
-        properties.setProperty(argument.getKey(), argument.getValue());
+      // pooled sessions are kept alive while idle, users can still override it
+      properties.setProperty(PROPERTY_CLIENT_SESSION_KEEP_ALIVE, Boolean.TRUE.toString());
+      if (!Strings.isNullOrEmpty(connectionArguments)) {
+        for (KeyValue<String, String> argument : KeyValueListParser.DEFAULT.parse(connectionArguments)) {
+          properties.setProperty(argument.getKey(), argument.getValue());
+        }
       }
-      properties.setProperty("application", APPLICATION_NAME);
+      properties.setProperty(PROPERTY_APPLICATION, APPLICATION_NAME);
     } catch (NoSuchFieldException | IllegalAccessException e) {
       throw new IllegalArgumentException(
         String.format("Cannot set connection arguments '%s'.", connectionArguments), e);
     }
   }
-
-  private static String writeTextToTmpFile(String text) {
-    try {
-      File temp = File.createTempFile("cdap_key", ".tmp");
-      temp.setReadable(true, true); // set readable only by owner
-
-      try (BufferedWriter bw = new BufferedWriter(new FileWriter(temp))) {
-        bw.write(text);
-      }
-      return temp.getPath();
-    } catch (IOException e) {
-      throw new RuntimeException("Cannot write key to temporary file", e);
-    }
-  }
 }
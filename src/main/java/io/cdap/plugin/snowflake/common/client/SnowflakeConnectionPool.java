@@ -0,0 +1,256 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+/**
+ * JVM-wide pool of Snowflake connections. Pools are shared by all accessors with the same connection settings, so
+ * tasks running in the same JVM reuse logged in sessions instead of logging in for every operation.
+ *
+ * The number of connections per pool is bounded, connections are validated before being handed out and idle
+ * connections are closed after {@link #IDLE_TIMEOUT_MILLIS}. Connections returned to the pool must not have their
+ * session state changed, statements that may change it should use {@link #openConnection()}.
+ */
+public class SnowflakeConnectionPool {
+  private static final Logger LOG = LoggerFactory.getLogger(SnowflakeConnectionPool.class);
+  private static final int MAX_CONNECTIONS = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+  private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+  private static final long ACQUIRE_TIMEOUT_MINUTES = 10;
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+  private static final ConcurrentMap<String, SnowflakeConnectionPool> POOLS = new ConcurrentHashMap<>();
+  private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "snowflake-connection-pool-evictor");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  static {
+    EVICTOR.scheduleWithFixedDelay(() -> POOLS.values().forEach(SnowflakeConnectionPool::evictIdle),
+                                   1, 1, TimeUnit.MINUTES);
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> POOLS.values().forEach(SnowflakeConnectionPool::closeIdle),
+                                                    "snowflake-connection-pool-shutdown"));
+  }
+
+  private final DataSourceFactory dataSourceFactory;
+  private final Semaphore permits = new Semaphore(MAX_CONNECTIONS, true);
+  private final Deque<IdleConnection> idleConnections = new ArrayDeque<>();
+
+  private SnowflakeConnectionPool(DataSourceFactory dataSourceFactory) {
+    this.dataSourceFactory = dataSourceFactory;
+  }
+
+  /**
+   * Returns pool for the given connection settings, creating it if needed.
+   *
+   * @param key identifies connection settings, see {@link SnowflakeAccessor}.
+   * @param dataSourceFactory creates data sources used to open new connections of the pool.
+   * @return connection pool.
+   */
+  public static SnowflakeConnectionPool getPool(String key, DataSourceFactory dataSourceFactory) {
+    return POOLS.computeIfAbsent(key, k -> new SnowflakeConnectionPool(dataSourceFactory));
+  }
+
+  /**
+   * Borrows connection from the pool, opening new one if there is no valid idle connection.
+   * Closing the returned connection returns it to the pool.
+   *
+   * @return pooled connection.
+   * @throws SQLException if connection cannot be opened or the pool is exhausted for too long.
+   */
+  public Connection getConnection() throws SQLException {
+    try {
+      if (!permits.tryAcquire(ACQUIRE_TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+        throw new SQLException(String.format("Timed out waiting for one of %d Snowflake connections in use.",
+                                             MAX_CONNECTIONS));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for Snowflake connection.", e);
+    }
+
+    try {
+      Connection connection;
+      while ((connection = pollIdle()) != null) {
+        if (isValid(connection)) {
+          return wrap(connection);
+        }
+        closeQuietly(connection);
+      }
+      return wrap(openConnection());
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Opens new connection, which is not managed by the pool and is closed by the caller.
+   *
+   * @return connection.
+   * @throws SQLException if connection cannot be opened.
+   */
+  public Connection openConnection() throws SQLException {
+    // data source is created for every connection, so that short-lived credentials such as OAuth tokens are fresh
+    return dataSourceFactory.create().getConnection();
+  }
+
+  private synchronized Connection pollIdle() {
+    IdleConnection idleConnection = idleConnections.pollFirst();
+    return idleConnection == null ? null : idleConnection.connection;
+  }
+
+  private void release(Connection connection) {
+    try {
+      if (connection.isClosed()) {
+        return;
+      }
+      synchronized (this) {
+        idleConnections.addFirst(new IdleConnection(connection, System.currentTimeMillis()));
+      }
+    } catch (SQLException e) {
+      closeQuietly(connection);
+    } finally {
+      permits.release();
+    }
+  }
+
+  private void evictIdle() {
+    long evictBefore = System.currentTimeMillis() - IDLE_TIMEOUT_MILLIS;
+    List<Connection> evicted = new ArrayList<>();
+    synchronized (this) {
+      Iterator<IdleConnection> iterator = idleConnections.iterator();
+      while (iterator.hasNext()) {
+        IdleConnection idleConnection = iterator.next();
+        if (idleConnection.idleSince < evictBefore) {
+          evicted.add(idleConnection.connection);
+          iterator.remove();
+        }
+      }
+    }
+    evicted.forEach(SnowflakeConnectionPool::closeQuietly);
+  }
+
+  private void closeIdle() {
+    List<Connection> idle = new ArrayList<>();
+    synchronized (this) {
+      idleConnections.forEach(idleConnection -> idle.add(idleConnection.connection));
+      idleConnections.clear();
+    }
+    idle.forEach(SnowflakeConnectionPool::closeQuietly);
+  }
+
+  private Connection wrap(Connection connection) {
+    return (Connection) Proxy.newProxyInstance(SnowflakeConnectionPool.class.getClassLoader(),
+                                               new Class<?>[]{Connection.class},
+                                               new PooledConnectionHandler(connection));
+  }
+
+  private static boolean isValid(Connection connection) {
+    try {
+      return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  private static void closeQuietly(Connection connection) {
+    try {
+      connection.close();
+    } catch (SQLException e) {
+      LOG.debug("Failed to close Snowflake connection.", e);
+    }
+  }
+
+  /**
+   * Creates data source for a pool.
+   */
+  public interface DataSourceFactory {
+    DataSource create();
+  }
+
+  private static final class IdleConnection {
+    private final Connection connection;
+    private final long idleSince;
+
+    private IdleConnection(Connection connection, long idleSince) {
+      this.connection = connection;
+      this.idleSince = idleSince;
+    }
+  }
+
+  /**
+   * Delegates calls to the physical connection, except for close, which returns it to the pool.
+   */
+  private final class PooledConnectionHandler implements InvocationHandler {
+    private final Connection connection;
+    private boolean closed;
+
+    private PooledConnectionHandler(Connection connection) {
+      this.connection = connection;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          if (!closed) {
+            closed = true;
+            release(connection);
+          }
+          return null;
+        case "isClosed":
+          return closed || connection.isClosed();
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "Pooled " + connection;
+        default:
+          if (closed) {
+            throw new SQLException("Connection is closed.");
+          }
+          try {
+            return method.invoke(connection, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+      }
+    }
+  }
+}
@@ -20,19 +20,28 @@ import java.util.Objects;
 
 /**
  * Contains information about field.
- * Can contain field name, type and nullable flag.
+ * Can contain field name, type, nullable flag, precision and scale.
  */
 public class SnowflakeFieldDescriptor {
 
   private String name;
   private Integer type;
   private Boolean nullable;
+  private int precision;
+  private int scale;
 
   public SnowflakeFieldDescriptor(String name, Integer type,
                                   Boolean nullable) {
+    this(name, type, nullable, 0, 0);
+  }
+
+  public SnowflakeFieldDescriptor(String name, Integer type,
+                                  Boolean nullable, int precision, int scale) {
     this.name = name;
     this.type = type;
     this.nullable = nullable;
+    this.precision = precision;
+    this.scale = scale;
   }
 
   public String getName() {
@@ -47,6 +56,17 @@ public class SnowflakeFieldDescriptor {
     return nullable;
   }
 
+  /**
+   * @return precision of numeric column, or 0 if it is unknown.
+   */
+  public int getPrecision() {
+    return precision;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -58,11 +78,13 @@ public class SnowflakeFieldDescriptor {
     SnowflakeFieldDescriptor that = (SnowflakeFieldDescriptor) o;
     return Objects.equals(name, that.name) &&
       Objects.equals(type, that.type) &&
-      Objects.equals(nullable, that.nullable);
+      Objects.equals(nullable, that.nullable) &&
+      precision == that.precision &&
+      scale == that.scale;
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(name, type, nullable);
+    return Objects.hash(name, type, nullable, precision, scale);
   }
 }
@@ -0,0 +1,283 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common.client;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import io.cdap.plugin.snowflake.common.BaseSnowflakeConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+
+/**
+ * Local on-disk cache of described queries, so that repeated validations of the same pipeline do not query
+ * Snowflake for the same metadata.
+ *
+ * Entries are keyed by a hash of the account, database, schema, role, authenticated identity and query. They expire
+ * after {@link #DEFAULT_TTL_MILLIS} and the least recently used entries are evicted once there are more than
+ * {@link #DEFAULT_MAX_ENTRIES}. Entries are stored in a directory of the current OS user, which only that user can
+ * access. Cache failures are logged and treated as cache misses.
+ */
+public class SnowflakeMetadataCache {
+  private static final Logger LOG = LoggerFactory.getLogger(SnowflakeMetadataCache.class);
+  private static final Gson GSON = new Gson();
+  private static final String ENTRY_SUFFIX = ".json";
+  private static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+  private static final int DEFAULT_MAX_ENTRIES = 1000;
+  private static final Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+  private static final SnowflakeMetadataCache INSTANCE = new SnowflakeMetadataCache(
+    Paths.get(System.getProperty("java.io.tmpdir"),
+              "cdap-snowflake-metadata-cache-" + System.getProperty("user.name")),
+    DEFAULT_TTL_MILLIS, DEFAULT_MAX_ENTRIES, System::currentTimeMillis);
+
+  private final Path directory;
+  private final long ttlMillis;
+  private final int maxEntries;
+  private final LongSupplier clock;
+
+  SnowflakeMetadataCache(Path directory, long ttlMillis, int maxEntries, LongSupplier clock) {
+    this.directory = directory;
+    this.ttlMillis = ttlMillis;
+    this.maxEntries = maxEntries;
+    this.clock = clock;
+  }
+
+  public static SnowflakeMetadataCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * @return cache key of the query run with the connection settings and the identity of the config.
+   */
+  public static String getKey(BaseSnowflakeConfig config, String query) {
+    // identity is only part of the hashed key, it is never stored
+    List<String> parts = Arrays.asList(config.getAccountName(), config.getDatabase(), config.getSchemaName(),
+                                       config.getRole(), config.getUsername(), config.getClientId(),
+                                       config.getRefreshToken(), config.getConnectionArguments(), query);
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(parts.toString().getBytes(StandardCharsets.UTF_8));
+      StringBuilder key = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        key.append(String.format("%02x", b));
+      }
+      return key.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported.", e);
+    }
+  }
+
+  /**
+   * @param key cache key.
+   * @return cached field descriptors, or null if there is no entry or it has expired.
+   */
+  @Nullable
+  public List<SnowflakeFieldDescriptor> get(String key) {
+    Path path = getPath(key);
+    if (!isDirectoryPrivate()) {
+      return null;
+    }
+    try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      Entry entry = GSON.fromJson(reader, Entry.class);
+      long now = clock.getAsLong();
+      if (entry == null || entry.fieldDescriptors == null || now - entry.createdAt >= ttlMillis) {
+        Files.deleteIfExists(path);
+        return null;
+      }
+      // last modified time tracks the last access for LRU eviction
+      Files.setLastModifiedTime(path, FileTime.fromMillis(now));
+      return entry.fieldDescriptors;
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | JsonParseException e) {
+      LOG.debug("Cannot read metadata cache entry '{}'.", path, e);
+      return null;
+    }
+  }
+
+  /**
+   * Caches field descriptors and evicts the least recently used entries if the cache is full.
+   *
+   * @param key cache key.
+   * @param fieldDescriptors field descriptors to cache.
+   */
+  public void put(String key, List<SnowflakeFieldDescriptor> fieldDescriptors) {
+    try {
+      createDirectory();
+      if (!isDirectoryPrivate()) {
+        return;
+      }
+      // written to a temporary file first, so that concurrent readers never see partial entries
+      Path tempPath = directory.resolve(UUID.randomUUID() + ".tmp");
+      try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+        GSON.toJson(new Entry(clock.getAsLong(), fieldDescriptors), writer);
+      }
+      Path path = getPath(key);
+      Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      Files.setLastModifiedTime(path, FileTime.fromMillis(clock.getAsLong()));
+      evict();
+    } catch (IOException e) {
+      LOG.debug("Cannot write metadata cache entry for key '{}'.", key, e);
+    }
+  }
+
+  /**
+   * Removes entry with the given key.
+   */
+  public void invalidate(String key) {
+    try {
+      Files.deleteIfExists(getPath(key));
+    } catch (IOException e) {
+      LOG.debug("Cannot remove metadata cache entry for key '{}'.", key, e);
+    }
+  }
+
+  /**
+   * Removes all entries.
+   */
+  public void invalidateAll() {
+    for (Path path : listEntries()) {
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException e) {
+        LOG.debug("Cannot remove metadata cache entry '{}'.", path, e);
+      }
+    }
+  }
+
+  private void evict() throws IOException {
+    List<Path> entries = listEntries();
+    if (entries.size() <= maxEntries) {
+      return;
+    }
+    List<EntryFile> entryFiles = new ArrayList<>();
+    for (Path path : entries) {
+      try {
+        entryFiles.add(new EntryFile(path, Files.getLastModifiedTime(path).toMillis()));
+      } catch (NoSuchFileException e) {
+        // removed concurrently
+      }
+    }
+    entryFiles.sort(Comparator.comparingLong(entryFile -> entryFile.lastAccess));
+    for (int i = 0; i < entryFiles.size() - maxEntries; i++) {
+      Files.deleteIfExists(entryFiles.get(i).path);
+    }
+  }
+
+  private void createDirectory() throws IOException {
+    if (Files.isDirectory(directory)) {
+      return;
+    }
+    try {
+      Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+    } catch (UnsupportedOperationException e) {
+      // file system without POSIX permissions
+      Files.createDirectories(directory);
+    }
+  }
+
+  /**
+   * Checks that the cache directory is owned by the current user and only the owner can access it, so that entries
+   * written by other users are never read.
+   */
+  private boolean isDirectoryPrivate() {
+    if (!Files.isDirectory(directory)) {
+      return false;
+    }
+    try {
+      PosixFileAttributes attributes = Files.readAttributes(directory, PosixFileAttributes.class,
+                                                            LinkOption.NOFOLLOW_LINKS);
+      UserPrincipal currentUser = directory.getFileSystem().getUserPrincipalLookupService()
+        .lookupPrincipalByName(System.getProperty("user.name"));
+      if (attributes.owner().equals(currentUser) && attributes.permissions().equals(OWNER_ONLY)) {
+        return true;
+      }
+      LOG.warn("Metadata cache directory '{}' is not private to the current user, caching is disabled.", directory);
+      return false;
+    } catch (UnsupportedOperationException e) {
+      // file system without POSIX permissions
+      return true;
+    } catch (IOException e) {
+      LOG.debug("Cannot check permissions of metadata cache directory '{}'.", directory, e);
+      return false;
+    }
+  }
+
+  private List<Path> listEntries() {
+    List<Path> entries = new ArrayList<>();
+    if (!Files.isDirectory(directory)) {
+      return entries;
+    }
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ENTRY_SUFFIX)) {
+      stream.forEach(entries::add);
+    } catch (IOException e) {
+      LOG.debug("Cannot list metadata cache entries in '{}'.", directory, e);
+    }
+    return entries;
+  }
+
+  private Path getPath(String key) {
+    return directory.resolve(key + ENTRY_SUFFIX);
+  }
+
+  private static final class Entry {
+    private final long createdAt;
+    private final List<SnowflakeFieldDescriptor> fieldDescriptors;
+
+    private Entry(long createdAt, List<SnowflakeFieldDescriptor> fieldDescriptors) {
+      this.createdAt = createdAt;
+      this.fieldDescriptors = fieldDescriptors;
+    }
+  }
+
+  private static final class EntryFile {
+    private final Path path;
+    private final long lastAccess;
+
+    private EntryFile(Path path, long lastAccess) {
+      this.path = path;
+      this.lastAccess = lastAccess;
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Parses temporal values unloaded by Snowflake in the fixed formats 'YYYY-MM-DD', 'HH24:MI:SS.FF' and
+ * 'YYYY-MM-DD"T"HH24:MI:SS.FFTZH:TZM'. Values are computed directly from the characters, the fraction of a second
+ * is optional and may have up to 9 digits. Input which does not match the layout is parsed with java.time.
+ */
+public class DateTimeParser {
+
+  private static final long MICROS_PER_SECOND = 1_000_000L;
+  private static final int SECONDS_PER_DAY = 86_400;
+  private static final int DATE_LENGTH = 10;
+  private static final int TIME_LENGTH = 8;
+  private static final int[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+  private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+  private static final int INVALID = -1;
+
+  private DateTimeParser() {
+  }
+
+  /**
+   * @param value date in 'YYYY-MM-DD' format.
+   * @return number of days since the epoch.
+   */
+  public static int parseDate(String value) {
+    if (value.length() == DATE_LENGTH) {
+      long epochDay = parseEpochDay(value);
+      if (epochDay != Long.MIN_VALUE) {
+        return (int) epochDay;
+      }
+    }
+    return Math.toIntExact(LocalDate.parse(value).toEpochDay());
+  }
+
+  /**
+   * @param value time in 'HH24:MI:SS[.FF]' format.
+   * @return number of microseconds since midnight.
+   */
+  public static long parseTimeMicros(String value) {
+    long seconds = parseSecondOfDay(value, 0);
+    if (seconds != INVALID) {
+      int end = fractionEnd(value, TIME_LENGTH);
+      if (end == value.length()) {
+        long fraction = parseFractionMicros(value, TIME_LENGTH, end);
+        if (fraction != INVALID) {
+          return seconds * MICROS_PER_SECOND + fraction;
+        }
+      }
+    }
+    return LocalTime.parse(value).toNanoOfDay() / 1_000L;
+  }
+
+  /**
+   * @param value timestamp in 'YYYY-MM-DD"T"HH24:MI:SS[.FF]TZH:TZM' format, 'Z' is accepted as zero offset.
+   * @return number of microseconds since the epoch.
+   */
+  public static long parseTimestampMicros(String value) {
+    long micros = parseTimestamp(value);
+    if (micros != Long.MIN_VALUE) {
+      return micros;
+    }
+    Instant instant = DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(value, Instant::from);
+    return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), MICROS_PER_SECOND), instant.getNano() / 1_000L);
+  }
+
+  private static long parseTimestamp(String value) {
+    if (value.length() < DATE_LENGTH + 1 + TIME_LENGTH + 1 || value.charAt(DATE_LENGTH) != 'T') {
+      return Long.MIN_VALUE;
+    }
+    long epochDay = parseEpochDay(value);
+    long seconds = parseSecondOfDay(value, DATE_LENGTH + 1);
+    if (epochDay == Long.MIN_VALUE || seconds == INVALID) {
+      return Long.MIN_VALUE;
+    }
+    int fractionStart = DATE_LENGTH + 1 + TIME_LENGTH;
+    int end = fractionEnd(value, fractionStart);
+    long fraction = parseFractionMicros(value, fractionStart, end);
+    int offset = parseOffsetSeconds(value, end);
+    if (fraction == INVALID || offset == Integer.MIN_VALUE) {
+      return Long.MIN_VALUE;
+    }
+    return (epochDay * SECONDS_PER_DAY + seconds - offset) * MICROS_PER_SECOND + fraction;
+  }
+
+  /**
+   * @return epoch day of the 'YYYY-MM-DD' date at the beginning of the value, or Long.MIN_VALUE if it is invalid.
+   */
+  private static long parseEpochDay(String value) {
+    if (value.charAt(4) != '-' || value.charAt(7) != '-') {
+      return Long.MIN_VALUE;
+    }
+    int year = parseDigits(value, 0, 4);
+    int month = parseDigits(value, 5, 2);
+    int day = parseDigits(value, 8, 2);
+    if (year == INVALID || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+      return Long.MIN_VALUE;
+    }
+    // days from civil, see http://howardhinnant.github.io/date_algorithms.html
+    int y = month <= 2 ? year - 1 : year;
+    int era = (y >= 0 ? y : y - 399) / 400;
+    int yearOfEra = y - era * 400;
+    int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+    return era * 146_097L + dayOfEra - 719_468;
+  }
+
+  /**
+   * @return second of day of the 'HH:MI:SS' time at the given position, or -1 if it is invalid.
+   */
+  private static long parseSecondOfDay(String value, int start) {
+    if (value.length() < start + TIME_LENGTH || value.charAt(start + 2) != ':' || value.charAt(start + 5) != ':') {
+      return INVALID;
+    }
+    int hour = parseDigits(value, start, 2);
+    int minute = parseDigits(value, start + 3, 2);
+    int second = parseDigits(value, start + 6, 2);
+    if (hour == INVALID || hour > 23 || minute == INVALID || minute > 59 || second == INVALID || second > 59) {
+      return INVALID;
+    }
+    return hour * 3_600L + minute * 60L + second;
+  }
+
+  /**
+   * @return end of the optional '.FF' fraction starting at the given position.
+   */
+  private static int fractionEnd(String value, int start) {
+    if (start >= value.length() || value.charAt(start) != '.') {
+      return start;
+    }
+    int end = start + 1;
+    while (end < value.length() && isDigit(value.charAt(end))) {
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * @return fraction of a second in microseconds, truncating digits beyond microseconds, or -1 if it is invalid.
+   */
+  private static long parseFractionMicros(String value, int start, int end) {
+    if (start == end) {
+      return 0;
+    }
+    int digits = end - start - 1;
+    if (digits < 1 || digits > 9) {
+      return INVALID;
+    }
+    int fraction = parseDigits(value, start + 1, Math.min(digits, 6));
+    return digits < 6 ? fraction * POWERS_OF_TEN[6 - digits] : fraction;
+  }
+
+  /**
+   * @return offset in seconds of '+HH:MI', '-HH:MI' or 'Z' which ends the value, or Integer.MIN_VALUE if invalid.
+   */
+  private static int parseOffsetSeconds(String value, int start) {
+    int length = value.length() - start;
+    if (length == 1 && value.charAt(start) == 'Z') {
+      return 0;
+    }
+    if (length != 6 || value.charAt(start + 3) != ':') {
+      return Integer.MIN_VALUE;
+    }
+    char sign = value.charAt(start);
+    int hours = parseDigits(value, start + 1, 2);
+    int minutes = parseDigits(value, start + 4, 2);
+    if ((sign != '+' && sign != '-') || hours == INVALID || hours > 18 || minutes == INVALID || minutes > 59) {
+      return Integer.MIN_VALUE;
+    }
+    int offset = hours * 3_600 + minutes * 60;
+    return sign == '-' ? -offset : offset;
+  }
+
+  private static int parseDigits(String value, int start, int count) {
+    int result = 0;
+    for (int i = start; i < start + count; i++) {
+      char c = value.charAt(i);
+      if (!isDigit(c)) {
+        return INVALID;
+      }
+      result = result * 10 + (c - '0');
+    }
+    return result;
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static int daysInMonth(int year, int month) {
+    if (month == 2 && year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) {
+      return 29;
+    }
+    return DAYS_IN_MONTH[month - 1];
+  }
+}
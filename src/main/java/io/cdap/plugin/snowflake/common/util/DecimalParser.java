@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Converts decimal strings into unscaled two's-complement bytes, as stored for the decimal logical type.
+ *
+ * Plain values with up to 18 significant digits are parsed into a long unscaled value and encoded directly.
+ * Other values, such as those with more digits, an exponent or more fractional digits than the scale, are handled
+ * by {@link BigDecimal}.
+ */
+public class DecimalParser {
+
+  private static final int MAX_LONG_DIGITS = 18;
+  private static final long[] POWERS_OF_TEN = new long[MAX_LONG_DIGITS + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  private DecimalParser() {
+  }
+
+  /**
+   * @param value decimal string.
+   * @param scale scale of the decimal field.
+   * @return bytes of the unscaled value, same as {@code new BigDecimal(value).setScale(scale)
+   * .unscaledValue().toByteArray()}.
+   * @throws ArithmeticException if the value has more fractional digits than the scale.
+   */
+  public static byte[] parseUnscaledBytes(String value, int scale) {
+    int length = value.length();
+    int position = 0;
+    boolean negative = false;
+    if (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) {
+      negative = value.charAt(0) == '-';
+      position++;
+    }
+
+    long unscaled = 0;
+    boolean hasDigits = false;
+    // significant digits, leading zeros are not counted
+    int digits = 0;
+    int fractionDigits = -1;
+    for (; position < length; position++) {
+      char c = value.charAt(position);
+      if (c >= '0' && c <= '9') {
+        hasDigits = true;
+        if (unscaled != 0 || c != '0') {
+          digits++;
+        }
+        unscaled = unscaled * 10 + (c - '0');
+        if (fractionDigits >= 0) {
+          fractionDigits++;
+        }
+      } else if (c == '.' && fractionDigits < 0) {
+        fractionDigits = 0;
+      } else {
+        return parseWithBigDecimal(value, scale);
+      }
+      if (digits > MAX_LONG_DIGITS) {
+        return parseWithBigDecimal(value, scale);
+      }
+    }
+
+    fractionDigits = Math.max(fractionDigits, 0);
+    int missingDigits = scale - fractionDigits;
+    if (!hasDigits || missingDigits < 0 || digits + missingDigits > MAX_LONG_DIGITS) {
+      return parseWithBigDecimal(value, scale);
+    }
+    unscaled *= POWERS_OF_TEN[missingDigits];
+    return toByteArray(negative ? -unscaled : unscaled);
+  }
+
+  /**
+   * Encodes the value in the minimal number of bytes, same as {@link java.math.BigInteger#toByteArray()}.
+   */
+  public static byte[] toByteArray(long value) {
+    int length = (64 - Long.numberOfLeadingZeros(value < 0 ? ~value : value)) / 8 + 1;
+    byte[] bytes = new byte[length];
+    for (int i = length - 1; i >= 0; i--) {
+      bytes[i] = (byte) value;
+      value >>= 8;
+    }
+    return bytes;
+  }
+
+  private static byte[] parseWithBigDecimal(String value, int scale) {
+    return new BigDecimal(value).setScale(scale).unscaledValue().toByteArray();
+  }
+}
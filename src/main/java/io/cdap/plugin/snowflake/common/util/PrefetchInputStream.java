@@ -0,0 +1,188 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.common.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Input stream which reads its source ahead on a background thread, so that downloading and decompressing the
+ * source overlaps with processing of the data already read.
+ *
+ * The source is read into a fixed ring of reusable blocks. The background thread fills free blocks and the reader
+ * consumes filled blocks in order, returning them to the ring once they are read, so memory is bounded by the
+ * number and size of the blocks. Failures of the background thread are rethrown to the reader.
+ */
+public class PrefetchInputStream extends InputStream {
+
+  private static final Block END = new Block(0);
+
+  private final InputStream source;
+  private final BlockingQueue<Block> freeBlocks;
+  // one more slot than blocks, so that the end or a failure can always be queued
+  private final BlockingQueue<Block> filledBlocks;
+  private final Thread prefetchThread;
+  private volatile boolean closed;
+  private Block current;
+  private int position;
+
+  /**
+   * Starts reading the source ahead.
+   *
+   * @param source stream to read ahead, closed when this stream is closed.
+   * @param blockCount number of blocks read ahead.
+   * @param blockSize size of a block in bytes.
+   * @param name name of the source, used to name the background thread.
+   */
+  public PrefetchInputStream(InputStream source, int blockCount, int blockSize, String name) {
+    if (blockCount < 1 || blockSize < 1) {
+      throw new IllegalArgumentException(
+        String.format("Invalid prefetch of %d blocks of %d bytes.", blockCount, blockSize));
+    }
+    this.source = source;
+    this.freeBlocks = new ArrayBlockingQueue<>(blockCount);
+    this.filledBlocks = new ArrayBlockingQueue<>(blockCount + 1);
+    for (int i = 0; i < blockCount; i++) {
+      freeBlocks.add(new Block(blockSize));
+    }
+    this.prefetchThread = new Thread(this::prefetch, "snowflake-prefetch-" + name);
+    prefetchThread.setDaemon(true);
+    prefetchThread.start();
+  }
+
+  @Override
+  public int read() throws IOException {
+    Block block = currentBlock();
+    if (block == END) {
+      return -1;
+    }
+    int value = block.data[position++] & 0xFF;
+    releaseIfRead(block);
+    return value;
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) {
+      return 0;
+    }
+    Block block = currentBlock();
+    if (block == END) {
+      return -1;
+    }
+    int read = Math.min(length, block.length - position);
+    System.arraycopy(block.data, position, bytes, offset, read);
+    position += read;
+    releaseIfRead(block);
+    return read;
+  }
+
+  @Override
+  public int available() {
+    return current == null || current == END ? 0 : current.length - position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    prefetchThread.interrupt();
+    // also unblocks the background thread if it waits for the source
+    source.close();
+  }
+
+  private Block currentBlock() throws IOException {
+    if (closed) {
+      throw new IOException("Stream is closed.");
+    }
+    if (current == null) {
+      try {
+        current = filledBlocks.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for data read ahead.");
+      }
+      position = 0;
+    }
+    if (current.failure != null) {
+      throw new IOException("Failed to read ahead: " + current.failure.getMessage(), current.failure);
+    }
+    return current;
+  }
+
+  private void releaseIfRead(Block block) {
+    if (position == block.length) {
+      current = null;
+      freeBlocks.add(block);
+    }
+  }
+
+  private void prefetch() {
+    try {
+      while (!closed) {
+        Block block = freeBlocks.take();
+        block.length = 0;
+        try {
+          readFully(block);
+        } finally {
+          // data read before a failure is still handed to the reader
+          if (block.length > 0) {
+            filledBlocks.put(block);
+          }
+        }
+        if (block.length < block.data.length) {
+          filledBlocks.put(END);
+          return;
+        }
+      }
+    } catch (InterruptedException e) {
+      // closed by the reader
+    } catch (IOException | RuntimeException e) {
+      if (!closed) {
+        Block failed = new Block(0);
+        failed.failure = e;
+        filledBlocks.add(failed);
+      }
+    }
+  }
+
+  private void readFully(Block block) throws IOException {
+    while (block.length < block.data.length) {
+      int read = source.read(block.data, block.length, block.data.length - block.length);
+      if (read < 0) {
+        return;
+      }
+      block.length += read;
+    }
+  }
+
+  private static final class Block {
+    private final byte[] data;
+    private int length;
+    private Exception failure;
+
+    private Block(int size) {
+      this.data = new byte[size];
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common.util;
+
+import com.google.common.base.Strings;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.annotation.Nullable;
+import javax.crypto.Cipher;
+import javax.crypto.EncryptedPrivateKeyInfo;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Parses PEM encoded PKCS#8 private keys in the same way as the Snowflake JDBC driver does for key files.
+ * Parsed keys are cached for the life of the JVM, keyed by a hash of the key and the passphrase.
+ */
+public class PrivateKeyUtil {
+
+  private static final String PEM_BOUNDARY = "-----";
+  private static final ConcurrentMap<String, PrivateKey> PRIVATE_KEYS = new ConcurrentHashMap<>();
+
+  private PrivateKeyUtil() {
+  }
+
+  /**
+   * @param pem PEM encoded private key, encrypted if the passphrase is set.
+   * @param passphrase passphrase of the encrypted private key.
+   * @return parsed RSA private key.
+   * @throws IllegalArgumentException if the key cannot be parsed or decrypted.
+   */
+  public static PrivateKey getPrivateKey(String pem, @Nullable String passphrase) {
+    return PRIVATE_KEYS.computeIfAbsent(getCacheKey(pem, passphrase), k -> parsePrivateKey(pem, passphrase));
+  }
+
+  static PrivateKey parsePrivateKey(String pem, @Nullable String passphrase) {
+    try {
+      byte[] encoded = decodePem(pem);
+      PKCS8EncodedKeySpec keySpec;
+      if (Strings.isNullOrEmpty(passphrase)) {
+        keySpec = new PKCS8EncodedKeySpec(encoded);
+      } else {
+        EncryptedPrivateKeyInfo encryptedKeyInfo = new EncryptedPrivateKeyInfo(encoded);
+        String algorithm = encryptedKeyInfo.getAlgName();
+        Key secretKey = SecretKeyFactory.getInstance(algorithm)
+          .generateSecret(new PBEKeySpec(passphrase.toCharArray()));
+        Cipher cipher = Cipher.getInstance(algorithm);
+        cipher.init(Cipher.DECRYPT_MODE, secretKey, encryptedKeyInfo.getAlgParameters());
+        keySpec = encryptedKeyInfo.getKeySpec(cipher);
+      }
+      return KeyFactory.getInstance("RSA").generatePrivate(keySpec);
+    } catch (GeneralSecurityException | IOException e) {
+      throw new IllegalArgumentException(String.format("Cannot parse private key: %s", e.getMessage()), e);
+    }
+  }
+
+  private static byte[] decodePem(String pem) {
+    StringBuilder content = new StringBuilder(pem.length());
+    for (String line : pem.split("\\r?\\n|\\r")) {
+      if (!line.trim().startsWith(PEM_BOUNDARY)) {
+        content.append(line);
+      }
+    }
+    return Base64.getMimeDecoder().decode(content.toString());
+  }
+
+  private static String getCacheKey(String pem, @Nullable String passphrase) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(pem.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+      digest.update(Strings.nullToEmpty(passphrase).getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest.digest());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("SHA-256 is not supported.", e);
+    }
+  }
+}
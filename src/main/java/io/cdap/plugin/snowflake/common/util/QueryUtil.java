@@ -35,6 +35,17 @@ public class QueryUtil {
     return importQuery;
   }
 
+  /**
+   * Limits number of rows returned by the query, keeping limits of the query itself if they are lower.
+   *
+   * @param importQuery query to limit.
+   * @param limit maximum number of rows.
+   * @return query returning at most the given number of rows.
+   */
+  public static String limitQueryResult(String importQuery, int limit) {
+    return String.format("SELECT * FROM (%s) %s", removeSemicolon(importQuery), String.format(LIMIT_STRING, limit));
+  }
+
   public static String limitQuery(String importQuery, int limit) {
     importQuery = removeSemicolon(importQuery);
 
@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.common.util;
+
+import com.google.common.io.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+
+/**
+ * Input stream which survives transient failures of its source. It tracks the number of bytes read and, if reading
+ * fails, reopens the source and skips the bytes already read, so that the reader continues where it stopped.
+ *
+ * Consecutive failures are retried up to the given number of times, with exponential backoff between attempts.
+ *
+ * The stream is read by a single thread, but may be closed from another one, which stops any further reopening.
+ */
+public class ResumableInputStream extends InputStream {
+  private static final Logger LOG = LoggerFactory.getLogger(ResumableInputStream.class);
+  private static final long DEFAULT_INITIAL_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(1);
+  private static final long DEFAULT_MAX_BACKOFF_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+  private final StreamOpener opener;
+  private final int maxRetries;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+  private final String name;
+  private final Object lock = new Object();
+  // guarded by lock
+  private InputStream current;
+  // read by other threads to report progress
+  private volatile long position;
+  private volatile boolean closed;
+
+  /**
+   * @param opener opens the source from its beginning.
+   * @param maxRetries maximum number of consecutive failures retried.
+   * @param name name of the source, used in logs.
+   */
+  public ResumableInputStream(StreamOpener opener, int maxRetries, String name) {
+    this(opener, maxRetries, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS, name);
+  }
+
+  ResumableInputStream(StreamOpener opener, int maxRetries, long initialBackoffMillis, long maxBackoffMillis,
+                       String name) {
+    this.opener = opener;
+    this.maxRetries = maxRetries;
+    this.initialBackoffMillis = initialBackoffMillis;
+    this.maxBackoffMillis = maxBackoffMillis;
+    this.name = name;
+  }
+
+  /**
+   * @return number of bytes read from the source.
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int failures = 0;
+    while (true) {
+      InputStream stream = null;
+      try {
+        stream = currentStream();
+        int value = stream.read();
+        if (value >= 0) {
+          position++;
+        }
+        return value;
+      } catch (IOException e) {
+        failures = recover(e, failures, stream);
+      }
+    }
+  }
+
+  @Override
+  public int read(byte[] bytes, int offset, int length) throws IOException {
+    int failures = 0;
+    while (true) {
+      InputStream stream = null;
+      try {
+        stream = currentStream();
+        int read = stream.read(bytes, offset, length);
+        if (read > 0) {
+          position += read;
+        }
+        return read;
+      } catch (IOException e) {
+        failures = recover(e, failures, stream);
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    InputStream stream;
+    synchronized (lock) {
+      stream = current;
+      current = null;
+    }
+    // closed outside of the lock, so that it unblocks a read in progress
+    if (stream != null) {
+      stream.close();
+    }
+  }
+
+  private InputStream currentStream() throws IOException {
+    synchronized (lock) {
+      if (closed) {
+        throw new IOException("Stream is closed.");
+      }
+      if (current != null) {
+        return current;
+      }
+    }
+    InputStream stream = opener.open();
+    try {
+      ByteStreams.skipFully(stream, position);
+    } catch (IOException e) {
+      closeQuietly(stream);
+      throw e;
+    }
+    synchronized (lock) {
+      if (!closed) {
+        current = stream;
+        return stream;
+      }
+    }
+    // closed while the source was reopened
+    closeQuietly(stream);
+    throw new IOException("Stream is closed.");
+  }
+
+  /**
+   * Closes the failed source and waits before it is reopened.
+   *
+   * @return number of consecutive failures, including the given one.
+   * @throws IOException the given failure, if there are no retries left or the stream was closed.
+   */
+  private int recover(IOException failure, int failures, @Nullable InputStream failed) throws IOException {
+    if (failed != null) {
+      synchronized (lock) {
+        if (current == failed) {
+          current = null;
+        }
+      }
+      closeQuietly(failed);
+    }
+    if (closed || failure instanceof InterruptedIOException || failures >= maxRetries) {
+      throw failure;
+    }
+    long backoffMillis = Math.min(initialBackoffMillis << Math.min(failures, 30), maxBackoffMillis);
+    LOG.warn("Failed to read '{}' at byte {}, reopening it in {} ms.", name, position, backoffMillis, failure);
+    try {
+      TimeUnit.MILLISECONDS.sleep(backoffMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to reopen " + name + ".");
+    }
+    if (closed) {
+      throw failure;
+    }
+    return failures + 1;
+  }
+
+  private static void closeQuietly(InputStream stream) {
+    try {
+      stream.close();
+    } catch (IOException e) {
+      LOG.debug("Failed to close stream.", e);
+    }
+  }
+
+  /**
+   * Opens source of the stream.
+   */
+  public interface StreamOpener {
+    InputStream open() throws IOException;
+  }
+}
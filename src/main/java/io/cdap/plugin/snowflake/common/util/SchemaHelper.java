@@ -18,6 +18,7 @@ package io.cdap.plugin.snowflake.common.util;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.cdap.etl.api.FailureCollector;
 import io.cdap.plugin.snowflake.common.client.SnowflakeAccessor;
@@ -30,7 +31,9 @@ import java.sql.Types;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Resolves schema.
@@ -53,6 +56,12 @@ public class SchemaHelper {
       .put(Types.SMALLINT, Schema.decimalOf(38))
       .build();
 
+  private static final Set<Integer> NUMERIC_TYPES = ImmutableSet.of(
+    Types.DECIMAL, Types.NUMERIC, Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT);
+  private static final int MAX_INT_PRECISION = 9;
+  private static final int MAX_LONG_PRECISION = 18;
+  private static final int MAX_DECIMAL_PRECISION = 38;
+
   private SchemaHelper() {
   }
 
@@ -62,11 +71,17 @@ public class SchemaHelper {
     }
 
     SnowflakeSourceAccessor snowflakeSourceAccessor = new SnowflakeSourceAccessor(config);
-    return getSchema(snowflakeSourceAccessor, config.getSchema(), collector, config.getImportQuery());
+    return getSchema(snowflakeSourceAccessor, config.getSchema(), collector, config.getImportQuery(),
+                     config.getNarrowNumericTypes());
   }
 
   public static Schema getSchema(SnowflakeSourceAccessor snowflakeAccessor, String schema,
                                  FailureCollector collector, String importQuery) {
+    return getSchema(snowflakeAccessor, schema, collector, importQuery, false);
+  }
+
+  public static Schema getSchema(SnowflakeSourceAccessor snowflakeAccessor, String schema,
+                                 FailureCollector collector, String importQuery, boolean narrowNumericTypes) {
     try {
       if (!Strings.isNullOrEmpty(schema)) {
         try {
@@ -75,7 +90,8 @@ public class SchemaHelper {
           throw new SchemaParseException(e);
         }
       }
-      return Strings.isNullOrEmpty(importQuery) ? null : getSchema(snowflakeAccessor, importQuery);
+      return Strings.isNullOrEmpty(importQuery) ? null
+        : getSchema(snowflakeAccessor, importQuery, narrowNumericTypes);
     } catch (SchemaParseException e) {
       collector.addFailure(String.format("Unable to retrieve output schema. Reason: '%s'", e.getMessage()),
                            null)
@@ -86,10 +102,26 @@ public class SchemaHelper {
   }
 
   public static Schema getSchema(SnowflakeAccessor snowflakeAccessor, String importQuery) {
+    return getSchema(snowflakeAccessor, importQuery, false);
+  }
+
+  /**
+   * Resolves schema of the import query.
+   *
+   * @param snowflakeAccessor accessor used to describe the query
+   * @param importQuery query to describe
+   * @param narrowNumericTypes if true, numeric columns are mapped using their precision and scale: NUMBER(p,0) is
+   *                           mapped to int if p <= 9, to long if p <= 18, and other numbers to decimal(p,s).
+   *                           Otherwise all numbers are mapped to decimals of maximum precision.
+   * @return record schema.
+   */
+  public static Schema getSchema(SnowflakeAccessor snowflakeAccessor, String importQuery,
+                                 boolean narrowNumericTypes) {
     try {
       List<SnowflakeFieldDescriptor> result = snowflakeAccessor.describeQuery(importQuery);
       List<Schema.Field> fields = result.stream()
-        .map(fieldDescriptor -> Schema.Field.of(fieldDescriptor.getName(), getSchema(fieldDescriptor)))
+        .map(fieldDescriptor -> Schema.Field.of(fieldDescriptor.getName(),
+                                                getSchema(fieldDescriptor, narrowNumericTypes)))
         .collect(Collectors.toList());
       return Schema.recordOf("data", fields);
     } catch (IOException e) {
@@ -97,9 +129,12 @@ public class SchemaHelper {
     }
   }
 
-  private static Schema getSchema(SnowflakeFieldDescriptor fieldDescriptor) {
+  private static Schema getSchema(SnowflakeFieldDescriptor fieldDescriptor, boolean narrowNumericTypes) {
     Integer type = fieldDescriptor.getType();
-    Schema schema = SNOWFLAKE_TYPE_TO_CDAP_SCHEMA.get(type);
+    Schema schema = narrowNumericTypes ? getNarrowNumericSchema(fieldDescriptor) : null;
+    if (schema == null) {
+      schema = SNOWFLAKE_TYPE_TO_CDAP_SCHEMA.get(type);
+    }
     if (schema == null) {
       throw new SchemaParseException(String.format(
         "No corresponding Schema is found for java.sql.Type: %d", type));
@@ -109,6 +144,26 @@ public class SchemaHelper {
       : schema;
   }
 
+  /**
+   * @return schema based on the precision and scale of numeric column, or null if the column is not numeric or its
+   * precision is unknown.
+   */
+  @Nullable
+  private static Schema getNarrowNumericSchema(SnowflakeFieldDescriptor fieldDescriptor) {
+    int precision = fieldDescriptor.getPrecision();
+    int scale = fieldDescriptor.getScale();
+    if (!NUMERIC_TYPES.contains(fieldDescriptor.getType()) || precision <= 0 || precision > MAX_DECIMAL_PRECISION) {
+      return null;
+    }
+    if (scale == 0 && precision <= MAX_INT_PRECISION) {
+      return Schema.of(Schema.Type.INT);
+    }
+    if (scale == 0 && precision <= MAX_LONG_PRECISION) {
+      return Schema.of(Schema.Type.LONG);
+    }
+    return Schema.decimalOf(precision, scale);
+  }
+
   /**
    * Works like {@link SchemaHelper#checkCompatibility(Schema, Schema, boolean)}
    * except that checking nullable is always on.
@@ -50,7 +50,7 @@ public class SnowflakeSinkAccessor extends SnowflakeAccessor {
     String filename = String.format(DEST_FILE_NAME, UUID.randomUUID().toString());
     LOG.info("Uploading file '{}' to table stage", filename);
 
-    try (Connection connection = dataSource.getConnection()) {
+    try (Connection connection = getConnection()) {
       connection.unwrap(SnowflakeConnection.class).uploadStream(stageDir,
                                                                 null,
                                                                 inputStream, filename, true);
@@ -104,10 +104,17 @@ public class SnowflakeSinkConfig extends BaseSnowflakeConfig {
     }
 
     SnowflakeAccessor snowflakeAccessor = new SnowflakeAccessor(this);
-    Schema expectedSchema = SchemaHelper.getSchema(snowflakeAccessor, String.format(GET_FIELDS_QUERY, tableName));
+    String query = String.format(GET_FIELDS_QUERY, tableName);
+    Schema expectedSchema = SchemaHelper.getSchema(snowflakeAccessor, query);
 
     try {
-      SchemaHelper.checkCompatibility(expectedSchema, schema);
+      try {
+        SchemaHelper.checkCompatibility(expectedSchema, schema);
+      } catch (IllegalArgumentException e) {
+        // table schema may be cached, check again against the actual table before failing
+        snowflakeAccessor.invalidateDescribedQuery(query);
+        SchemaHelper.checkCompatibility(SchemaHelper.getSchema(snowflakeAccessor, query), schema);
+      }
     } catch (IllegalArgumentException ex) {
       failureCollector.addFailure(String.format("Input schema does not correspond with schema of actual table. %s",
                                                 ex.getMessage()) , null)
@@ -0,0 +1,269 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+
+/**
+ * Tokenizer for the CSV files unloaded by {@link SnowflakeSourceAccessor}. Only the format used by the
+ * COPY INTO command is supported: comma delimiter, fields optionally enclosed by double quotes with embedded
+ * quotes doubled, no escape character and NULL written as an empty unenclosed field.
+ *
+ * Records are tokenized in place over a reusable byte buffer, only field offsets are recorded. Strings are
+ * decoded from UTF-8 on demand, so fields which are never requested cost nothing besides the scan.
+ */
+public class CSVTokenizer implements Closeable {
+  private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+  private static final int INITIAL_FIELD_CAPACITY = 16;
+  private static final byte DELIMITER = ',';
+  private static final byte QUOTE = '"';
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+  private static final byte FLAG_QUOTED = 1;
+  private static final byte FLAG_ESCAPED_QUOTES = 2;
+  private static final int NEED_MORE_DATA = -1;
+  private static final int END_OF_DATA = -2;
+
+  private final InputStream inputStream;
+  private byte[] buffer;
+  private int position;
+  private int limit;
+  private boolean endOfStream;
+
+  private int fieldCount;
+  private int[] fieldStarts = new int[INITIAL_FIELD_CAPACITY];
+  private int[] fieldEnds = new int[INITIAL_FIELD_CAPACITY];
+  private byte[] fieldFlags = new byte[INITIAL_FIELD_CAPACITY];
+  private byte[] unescapeBuffer = new byte[0];
+
+  public CSVTokenizer(InputStream inputStream) {
+    this(inputStream, DEFAULT_BUFFER_SIZE);
+  }
+
+  public CSVTokenizer(InputStream inputStream, int bufferSize) {
+    this.inputStream = inputStream;
+    this.buffer = new byte[bufferSize];
+  }
+
+  /**
+   * Advances to the next record. Field accessors refer to this record until the next call.
+   *
+   * @return true if a record was read, false if the end of the stream is reached.
+   * @throws IOException thrown if the stream cannot be read or the data is not valid CSV.
+   */
+  public boolean nextRecord() throws IOException {
+    while (true) {
+      int next = parseRecord(position);
+      if (next == END_OF_DATA) {
+        fieldCount = 0;
+        return false;
+      }
+      if (next != NEED_MORE_DATA) {
+        position = next;
+        return true;
+      }
+      fill();
+    }
+  }
+
+  /**
+   * @return number of fields in the current record.
+   */
+  public int getFieldCount() {
+    return fieldCount;
+  }
+
+  /**
+   * @param index zero based field index.
+   * @return true if the field is NULL (empty and not enclosed) or absent in the current record.
+   */
+  public boolean isNull(int index) {
+    return index >= fieldCount || (fieldFlags[index] == 0 && fieldStarts[index] == fieldEnds[index]);
+  }
+
+  /**
+   * Decodes field of the current record.
+   *
+   * @param index zero based field index.
+   * @return field value, or null if the field is NULL.
+   */
+  @Nullable
+  public String getString(int index) {
+    if (isNull(index)) {
+      return null;
+    }
+    int start = fieldStarts[index];
+    int end = fieldEnds[index];
+    if ((fieldFlags[index] & FLAG_ESCAPED_QUOTES) == 0) {
+      return new String(buffer, start, end - start, StandardCharsets.UTF_8);
+    }
+    if (unescapeBuffer.length < end - start) {
+      unescapeBuffer = new byte[end - start];
+    }
+    int length = 0;
+    for (int i = start; i < end; i++) {
+      byte b = buffer[i];
+      unescapeBuffer[length++] = b;
+      if (b == QUOTE) {
+        // skip the second quote of the escaped pair
+        i++;
+      }
+    }
+    return new String(unescapeBuffer, 0, length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads the next record and decodes all of its fields.
+   *
+   * @return array of field values, or null if the end of the stream is reached.
+   * @throws IOException thrown if the stream cannot be read or the data is not valid CSV.
+   */
+  @Nullable
+  public String[] readRecord() throws IOException {
+    if (!nextRecord()) {
+      return null;
+    }
+    String[] record = new String[fieldCount];
+    for (int i = 0; i < fieldCount; i++) {
+      record[i] = getString(i);
+    }
+    return record;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inputStream.close();
+  }
+
+  /**
+   * Tokenizes a record starting at the given buffer offset.
+   *
+   * @return offset right after the record, {@link #NEED_MORE_DATA} if the record is not fully buffered yet or
+   * {@link #END_OF_DATA} if there are no more records.
+   */
+  private int parseRecord(int start) throws IOException {
+    if (start == limit) {
+      return endOfStream ? END_OF_DATA : NEED_MORE_DATA;
+    }
+    byte[] buf = buffer;
+    int end = limit;
+    int p = start;
+    int count = 0;
+    while (true) {
+      if (count == fieldStarts.length) {
+        growFields();
+      }
+      if (p < end && buf[p] == QUOTE) {
+        int fieldStart = ++p;
+        byte flags = FLAG_QUOTED;
+        while (true) {
+          while (p < end && buf[p] != QUOTE) {
+            p++;
+          }
+          if (p == end) {
+            if (endOfStream) {
+              throw new IOException("Unexpected end of stream inside an enclosed field.");
+            }
+            return NEED_MORE_DATA;
+          }
+          if (p + 1 == end && !endOfStream) {
+            // cannot tell closing quote from escaped one yet
+            return NEED_MORE_DATA;
+          }
+          if (p + 1 < end && buf[p + 1] == QUOTE) {
+            flags |= FLAG_ESCAPED_QUOTES;
+            p += 2;
+            continue;
+          }
+          break;
+        }
+        fieldStarts[count] = fieldStart;
+        fieldEnds[count] = p;
+        fieldFlags[count] = flags;
+        p++;
+      } else {
+        int fieldStart = p;
+        while (p < end) {
+          byte b = buf[p];
+          if (b == DELIMITER || b == LF || b == CR) {
+            break;
+          }
+          p++;
+        }
+        fieldStarts[count] = fieldStart;
+        fieldEnds[count] = p;
+        fieldFlags[count] = 0;
+      }
+      count++;
+
+      if (p == end) {
+        if (!endOfStream) {
+          return NEED_MORE_DATA;
+        }
+        fieldCount = count;
+        return p;
+      }
+      byte b = buf[p];
+      if (b == DELIMITER) {
+        p++;
+      } else if (b == LF) {
+        fieldCount = count;
+        return p + 1;
+      } else if (b == CR) {
+        if (p + 1 == end && !endOfStream) {
+          return NEED_MORE_DATA;
+        }
+        fieldCount = count;
+        return p + 1 < end && buf[p + 1] == LF ? p + 2 : p + 1;
+      } else {
+        throw new IOException(String.format("Unexpected character '%s' after enclosed field %d.", (char) b, count));
+      }
+    }
+  }
+
+  /**
+   * Moves the unconsumed bytes to the beginning of the buffer, grows it if it is full and reads more data.
+   */
+  private void fill() throws IOException {
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      position = 0;
+    }
+    if (limit == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    int read = inputStream.read(buffer, limit, buffer.length - limit);
+    if (read < 0) {
+      endOfStream = true;
+    } else {
+      limit += read;
+    }
+  }
+
+  private void growFields() {
+    int capacity = fieldStarts.length * 2;
+    fieldStarts = Arrays.copyOf(fieldStarts, capacity);
+    fieldEnds = Arrays.copyOf(fieldEnds, capacity);
+    fieldFlags = Arrays.copyOf(fieldFlags, capacity);
+  }
+}
@@ -0,0 +1,428 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.format.UnexpectedFormatException;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.snowflake.common.util.DecimalParser;
+import org.apache.parquet.column.Dictionary;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.io.api.Converter;
+import org.apache.parquet.io.api.GroupConverter;
+import org.apache.parquet.io.api.PrimitiveConverter;
+import org.apache.parquet.io.api.RecordMaterializer;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName;
+import org.apache.parquet.schema.Type;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Materializes rows of Parquet stage files directly into {@link StructuredRecord}.
+ *
+ * A converter is compiled once per file for every column that is a field of the output schema, based on the
+ * Parquet type of the column and the schema of the field, so that typed values are set on the record without being
+ * formatted and parsed as text. Text columns of other fields, such as semi-structured values read as strings, are
+ * converted the same way as CSV values, once per dictionary entry when the column is dictionary encoded.
+ */
+class ParquetRecordMaterializer extends RecordMaterializer<StructuredRecord> {
+
+  // Julian day of 1970-01-01, INT96 timestamps are stored as nanos of day followed by Julian day
+  private static final long JULIAN_EPOCH_DAY = 2_440_588;
+  private static final long MICROS_PER_DAY = TimeUnit.DAYS.toMicros(1);
+
+  private final Schema schema;
+  private final RootConverter rootConverter;
+  private StructuredRecord.Builder builder;
+  private StructuredRecord record;
+
+  /**
+   * @param requestedSchema Parquet schema of the columns to read, see {@link #getRequestedSchema}.
+   * @param schema output schema of the source.
+   */
+  ParquetRecordMaterializer(MessageType requestedSchema, Schema schema) {
+    this.schema = schema;
+    List<Type> columns = requestedSchema.getFields();
+    Converter[] converters = new Converter[columns.size()];
+    for (int i = 0; i < converters.length; i++) {
+      Type column = columns.get(i);
+      Schema.Field field = schema.getField(column.getName());
+      Schema fieldSchema = field.getSchema().isNullable() ? field.getSchema().getNonNullable() : field.getSchema();
+      if (!column.isPrimitive()) {
+        throw new UnexpectedFormatException(
+          String.format("Field '%s' cannot be read from nested Parquet column '%s'.", field.getName(), column));
+      }
+      converters[i] = compileConverter(field.getName(), fieldSchema, column.asPrimitiveType());
+    }
+    this.rootConverter = new RootConverter(converters);
+  }
+
+  /**
+   * @param fileSchema Parquet schema of the file.
+   * @param schema output schema of the source.
+   * @return schema of the file columns that are fields of the output schema, other columns are not read.
+   */
+  static MessageType getRequestedSchema(MessageType fileSchema, Schema schema) {
+    List<Type> columns = new ArrayList<>();
+    for (Type column : fileSchema.getFields()) {
+      if (schema.getField(column.getName()) != null) {
+        columns.add(column);
+      }
+    }
+    return new MessageType(fileSchema.getName(), columns);
+  }
+
+  @Override
+  public StructuredRecord getCurrentRecord() {
+    return record;
+  }
+
+  @Override
+  public GroupConverter getRootConverter() {
+    return rootConverter;
+  }
+
+  private ValueConverter compileConverter(String fieldName, Schema fieldSchema, PrimitiveType column) {
+    PrimitiveTypeName typeName = column.getPrimitiveTypeName();
+    OriginalType originalType = column.getOriginalType();
+    boolean binary = typeName == PrimitiveTypeName.BINARY || typeName == PrimitiveTypeName.FIXED_LEN_BYTE_ARRAY;
+    boolean decimal = originalType == OriginalType.DECIMAL;
+    int columnScale = decimal ? column.getDecimalMetadata().getScale() : 0;
+
+    Schema.LogicalType logicalType = fieldSchema.getLogicalType();
+    if (binary && !decimal && logicalType != Schema.LogicalType.DECIMAL
+      && fieldSchema.getType() != Schema.Type.BYTES) {
+      return new TextConverter(fieldName, fieldSchema);
+    }
+
+    if (logicalType != null) {
+      switch (logicalType) {
+        case DECIMAL:
+          int scale = fieldSchema.getScale();
+          if (columnScale == scale && (typeName == PrimitiveTypeName.INT32 || typeName == PrimitiveTypeName.INT64)) {
+            return new ValueConverter(fieldName) {
+              @Override
+              public void addInt(int value) {
+                set(DecimalParser.toByteArray(value));
+              }
+
+              @Override
+              public void addLong(long value) {
+                set(DecimalParser.toByteArray(value));
+              }
+            };
+          }
+          if (columnScale == scale && binary) {
+            return new ValueConverter(fieldName) {
+              @Override
+              public void addBinary(Binary value) {
+                set(value.getBytes());
+              }
+            };
+          }
+          return compileNumberConverter(fieldName, fieldSchema, column,
+                                        value -> value.setScale(scale).unscaledValue().toByteArray());
+        case DATE:
+          if (typeName == PrimitiveTypeName.INT32) {
+            return new ValueConverter(fieldName) {
+              @Override
+              public void addInt(int value) {
+                set(value);
+              }
+            };
+          }
+          break;
+        case TIMESTAMP_MICROS:
+          if (typeName == PrimitiveTypeName.INT64) {
+            // timestamps without annotation are written with nanosecond precision
+            TimeUnit unit = originalType == OriginalType.TIMESTAMP_MILLIS ? TimeUnit.MILLISECONDS
+              : originalType == OriginalType.TIMESTAMP_MICROS ? TimeUnit.MICROSECONDS : TimeUnit.NANOSECONDS;
+            return new ValueConverter(fieldName) {
+              @Override
+              public void addLong(long value) {
+                set(toMicros(value, unit));
+              }
+            };
+          }
+          if (typeName == PrimitiveTypeName.INT96) {
+            return new ValueConverter(fieldName) {
+              @Override
+              public void addBinary(Binary value) {
+                set(int96ToMicros(value));
+              }
+            };
+          }
+          break;
+        case TIME_MICROS:
+          if (typeName == PrimitiveTypeName.INT32) {
+            return new ValueConverter(fieldName) {
+              @Override
+              public void addInt(int value) {
+                set(TimeUnit.MILLISECONDS.toMicros(value));
+              }
+            };
+          }
+          if (typeName == PrimitiveTypeName.INT64) {
+            TimeUnit unit = originalType == OriginalType.TIME_MICROS ? TimeUnit.MICROSECONDS : TimeUnit.NANOSECONDS;
+            return new ValueConverter(fieldName) {
+              @Override
+              public void addLong(long value) {
+                set(toMicros(value, unit));
+              }
+            };
+          }
+          break;
+      }
+      throw unsupported(fieldName, fieldSchema, column);
+    }
+
+    switch (fieldSchema.getType()) {
+      case INT:
+        if (columnScale == 0 && typeName == PrimitiveTypeName.INT32) {
+          return new ValueConverter(fieldName) {
+            @Override
+            public void addInt(int value) {
+              set(value);
+            }
+          };
+        }
+        return compileNumberConverter(fieldName, fieldSchema, column, BigDecimal::intValueExact);
+      case LONG:
+        if (columnScale == 0 && (typeName == PrimitiveTypeName.INT32 || typeName == PrimitiveTypeName.INT64)) {
+          return new ValueConverter(fieldName) {
+            @Override
+            public void addInt(int value) {
+              set((long) value);
+            }
+
+            @Override
+            public void addLong(long value) {
+              set(value);
+            }
+          };
+        }
+        return compileNumberConverter(fieldName, fieldSchema, column, BigDecimal::longValueExact);
+      case DOUBLE:
+        if (typeName == PrimitiveTypeName.DOUBLE || typeName == PrimitiveTypeName.FLOAT) {
+          return new ValueConverter(fieldName) {
+            @Override
+            public void addDouble(double value) {
+              set(value);
+            }
+
+            @Override
+            public void addFloat(float value) {
+              set((double) value);
+            }
+          };
+        }
+        return compileNumberConverter(fieldName, fieldSchema, column, BigDecimal::doubleValue);
+      case BOOLEAN:
+        if (typeName == PrimitiveTypeName.BOOLEAN) {
+          return new ValueConverter(fieldName) {
+            @Override
+            public void addBoolean(boolean value) {
+              set(value);
+            }
+          };
+        }
+        break;
+      case BYTES:
+        if (binary) {
+          return new ValueConverter(fieldName) {
+            @Override
+            public void addBinary(Binary value) {
+              set(value.getBytes());
+            }
+          };
+        }
+        break;
+      case STRING:
+        if (typeName == PrimitiveTypeName.BOOLEAN || typeName == PrimitiveTypeName.DOUBLE
+          || typeName == PrimitiveTypeName.FLOAT) {
+          return new ValueConverter(fieldName) {
+            @Override
+            public void addBoolean(boolean value) {
+              set(String.valueOf(value));
+            }
+
+            @Override
+            public void addDouble(double value) {
+              set(String.valueOf(value));
+            }
+
+            @Override
+            public void addFloat(float value) {
+              set(String.valueOf(value));
+            }
+          };
+        }
+        return compileNumberConverter(fieldName, fieldSchema, column, BigDecimal::toPlainString);
+    }
+    throw unsupported(fieldName, fieldSchema, column);
+  }
+
+  /**
+   * Converts integer and decimal columns through {@link BigDecimal}, for fields which need rescaling or narrowing.
+   */
+  private ValueConverter compileNumberConverter(String fieldName, Schema fieldSchema, PrimitiveType column,
+                                                Function<BigDecimal, Object> converter) {
+    PrimitiveTypeName typeName = column.getPrimitiveTypeName();
+    OriginalType originalType = column.getOriginalType();
+    boolean decimal = originalType == OriginalType.DECIMAL;
+    boolean integer = (typeName == PrimitiveTypeName.INT32 || typeName == PrimitiveTypeName.INT64)
+      && (originalType == null || originalType.name().startsWith("INT_") || originalType.name().startsWith("UINT_"));
+    if (!integer && !decimal) {
+      throw unsupported(fieldName, fieldSchema, column);
+    }
+    int columnScale = decimal ? column.getDecimalMetadata().getScale() : 0;
+    return new ValueConverter(fieldName) {
+      @Override
+      public void addInt(int value) {
+        set(converter.apply(BigDecimal.valueOf(value, columnScale)));
+      }
+
+      @Override
+      public void addLong(long value) {
+        set(converter.apply(BigDecimal.valueOf(value, columnScale)));
+      }
+
+      @Override
+      public void addBinary(Binary value) {
+        set(converter.apply(new BigDecimal(new BigInteger(value.getBytes()), columnScale)));
+      }
+    };
+  }
+
+  private static long toMicros(long value, TimeUnit unit) {
+    // floor division keeps timestamps before the epoch in the same microsecond
+    return unit == TimeUnit.NANOSECONDS ? Math.floorDiv(value, 1000L) : unit.toMicros(value);
+  }
+
+  private static long int96ToMicros(Binary value) {
+    ByteBuffer buffer = value.toByteBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    long nanosOfDay = buffer.getLong();
+    long julianDay = buffer.getInt();
+    return (julianDay - JULIAN_EPOCH_DAY) * MICROS_PER_DAY + nanosOfDay / 1000L;
+  }
+
+  private static UnexpectedFormatException unsupported(String fieldName, Schema fieldSchema, PrimitiveType column) {
+    return new UnexpectedFormatException(
+      String.format("Field '%s' of type '%s' cannot be read from Parquet column '%s'.",
+                    fieldName, fieldSchema.getDisplayName(), column));
+  }
+
+  /**
+   * Starts a new record for every row, values of absent and NULL columns are left unset.
+   */
+  private final class RootConverter extends GroupConverter {
+    private final Converter[] converters;
+
+    private RootConverter(Converter[] converters) {
+      this.converters = converters;
+    }
+
+    @Override
+    public Converter getConverter(int fieldIndex) {
+      return converters[fieldIndex];
+    }
+
+    @Override
+    public void start() {
+      builder = StructuredRecord.builder(schema);
+    }
+
+    @Override
+    public void end() {
+      record = builder.build();
+    }
+  }
+
+  /**
+   * Sets decoded values of a column on the current record.
+   */
+  private abstract class ValueConverter extends PrimitiveConverter {
+    private final String fieldName;
+
+    private ValueConverter(String fieldName) {
+      this.fieldName = fieldName;
+    }
+
+    protected void set(Object value) {
+      builder.set(fieldName, value);
+    }
+  }
+
+  /**
+   * Converts UTF-8 text columns with the CSV field converters, values of dictionary encoded columns are converted
+   * once per dictionary entry.
+   */
+  private final class TextConverter extends ValueConverter {
+    private final SnowflakeMapToRecordTransformer.FieldConverter converter;
+    private final boolean string;
+    private Object[] dictionary;
+
+    private TextConverter(String fieldName, Schema fieldSchema) {
+      super(fieldName);
+      this.converter = SnowflakeMapToRecordTransformer.compileConverter(fieldName, fieldSchema);
+      this.string = fieldSchema.getType() == Schema.Type.STRING;
+    }
+
+    @Override
+    public boolean hasDictionarySupport() {
+      return true;
+    }
+
+    @Override
+    public void setDictionary(Dictionary dictionary) {
+      this.dictionary = new Object[dictionary.getMaxId() + 1];
+      for (int i = 0; i < this.dictionary.length; i++) {
+        this.dictionary[i] = convert(dictionary.decodeToBinary(i));
+      }
+    }
+
+    @Override
+    public void addValueFromDictionary(int dictionaryId) {
+      set(dictionary[dictionaryId]);
+    }
+
+    @Override
+    public void addBinary(Binary value) {
+      set(convert(value));
+    }
+
+    private Object convert(Binary value) {
+      String text = value.toStringUsingUTF8();
+      if (string) {
+        return text;
+      }
+      // empty text of other types is considered null, same as in csv
+      return text.isEmpty() ? null : converter.convert(text);
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.parquet.column.page.PageReadStore;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.io.ColumnIOFactory;
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.MessageColumnIO;
+import org.apache.parquet.io.RecordReader;
+import org.apache.parquet.schema.MessageType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import javax.annotation.Nullable;
+
+/**
+ * Reads records of a Parquet stage file, row group by row group. Only the columns that are fields of the output
+ * schema are read and decompressed.
+ */
+public class ParquetStageFileReader implements Closeable {
+
+  private final ParquetFileReader fileReader;
+  private final MessageColumnIO columnIO;
+  private final ParquetRecordMaterializer materializer;
+  private final long rowCount;
+  private RecordReader<StructuredRecord> recordReader;
+  private long rowsLeftInGroup;
+  private long rowsRead;
+
+  /**
+   * @param file Parquet file, usually a {@link LocalInputFile} downloaded from the stage.
+   * @param schema output schema of the source.
+   * @throws IOException if the file is not a valid Parquet file.
+   */
+  public ParquetStageFileReader(InputFile file, Schema schema) throws IOException {
+    this.fileReader = ParquetFileReader.open(file);
+    MessageType fileSchema = fileReader.getFooter().getFileMetaData().getSchema();
+    MessageType requestedSchema = ParquetRecordMaterializer.getRequestedSchema(fileSchema, schema);
+    fileReader.setRequestedSchema(requestedSchema);
+    this.columnIO = new ColumnIOFactory().getColumnIO(requestedSchema, fileSchema);
+    this.materializer = new ParquetRecordMaterializer(requestedSchema, schema);
+    this.rowCount = fileReader.getRecordCount();
+  }
+
+  /**
+   * @return next record, or null if all records of the file are read.
+   * @throws IOException if a row group cannot be read.
+   */
+  @Nullable
+  public StructuredRecord next() throws IOException {
+    while (rowsLeftInGroup == 0) {
+      PageReadStore rowGroup = fileReader.readNextRowGroup();
+      if (rowGroup == null) {
+        return null;
+      }
+      rowsLeftInGroup = rowGroup.getRowCount();
+      recordReader = columnIO.getRecordReader(rowGroup, materializer);
+    }
+    rowsLeftInGroup--;
+    rowsRead++;
+    return recordReader.read();
+  }
+
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  public long getRowsRead() {
+    return rowsRead;
+  }
+
+  @Override
+  public void close() throws IOException {
+    fileReader.close();
+  }
+}
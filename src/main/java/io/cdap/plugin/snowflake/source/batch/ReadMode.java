@@ -0,0 +1,47 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.source.batch;
+
+/**
+ * How the source reads the result of the import query.
+ */
+public enum ReadMode {
+  /**
+   * Result is copied into files of the {@link StageFormat} in the user stage, which are grouped into splits. CSV
+   * files are compressed with the {@link StageCompression}.
+   */
+  STAGE("Stage"),
+  /**
+   * Query is run once, chunks of its result are downloaded directly by the splits.
+   */
+  RESULT_CHUNKS("Result Chunks");
+
+  private final String value;
+
+  ReadMode(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return this.getValue();
+  }
+}
@@ -16,6 +16,7 @@
 
 package io.cdap.plugin.snowflake.source.batch;
 
+import com.google.common.base.Strings;
 import io.cdap.cdap.api.annotation.Description;
 import io.cdap.cdap.api.annotation.Name;
 import io.cdap.cdap.api.annotation.Plugin;
@@ -32,9 +33,13 @@ import io.cdap.cdap.etl.api.batch.BatchSourceContext;
 import io.cdap.plugin.common.LineageRecorder;
 import io.cdap.plugin.snowflake.common.util.SchemaHelper;
 import org.apache.hadoop.io.NullWritable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.Map;
+import java.io.IOException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Source plugin to read data from Snowflake.
@@ -42,12 +47,14 @@ import java.util.stream.Collectors;
 @Plugin(type = BatchSource.PLUGIN_TYPE)
 @Name(SnowflakeBatchSource.NAME)
 @Description("Read data from Snowflake.")
-public class SnowflakeBatchSource extends BatchSource<NullWritable, Map<String, String>, StructuredRecord> {
+public class SnowflakeBatchSource extends BatchSource<NullWritable, SnowflakeRow, StructuredRecord> {
 
   public static final String NAME = "Snowflake";
+  private static final Logger LOG = LoggerFactory.getLogger(SnowflakeBatchSource.class);
 
   private final SnowflakeBatchSourceConfig config;
   private SnowflakeMapToRecordTransformer transformer;
+  private String stagePath;
 
   public SnowflakeBatchSource(SnowflakeBatchSourceConfig config) {
     this.config = config;
@@ -69,6 +76,10 @@ public class SnowflakeBatchSource extends BatchSource<NullWritable, Map<String,
     FailureCollector failureCollector = context.getFailureCollector();
     config.validate(failureCollector);
 
+    // metadata cache only serves design time validation, the run describes the import query as it is now
+    if (config.canConnect() && !Strings.isNullOrEmpty(config.getImportQuery())) {
+      new SnowflakeSourceAccessor(config).invalidateDescribedQuery(config.getImportQuery());
+    }
     Schema schema = SchemaHelper.getSchema(config, failureCollector);
     failureCollector.getOrThrowException();
 
@@ -81,19 +92,56 @@ public class SnowflakeBatchSource extends BatchSource<NullWritable, Map<String,
                                    .collect(Collectors.toList()));
     }
 
-    context.setInput(Input.of(config.getReferenceName(), new SnowflakeInputFormatProvider(config)));
+    // result is staged in a directory of this run, which is kept for retries of tasks until the run finishes
+    stagePath = SnowflakeSourceAccessor.createStagePath();
+    // preview reads a limited result directly, without staging the whole result
+    SnowflakeInputFormatProvider inputFormatProvider =
+      new SnowflakeInputFormatProvider(config, schema, context.isPreviewEnabled(), stagePath);
+    context.setInput(Input.of(config.getReferenceName(), inputFormatProvider));
+  }
+
+  @Override
+  public void onRunFinish(boolean succeeded, BatchSourceContext context) {
+    if (stagePath == null || context.isPreviewEnabled() || config.getReadMode() != ReadMode.STAGE) {
+      return;
+    }
+    try {
+      new SnowflakeSourceAccessor(config).removeStage(stagePath);
+    } catch (IOException e) {
+      LOG.warn("Failed to remove stage files in '{}'.", stagePath, e);
+    }
   }
 
   @Override
   public void initialize(BatchRuntimeContext context) throws Exception {
     super.initialize(context);
-    SnowflakeSourceAccessor snowflakeAccessor = new SnowflakeSourceAccessor(config);
-    Schema schema = SchemaHelper.getSchema(snowflakeAccessor, config.getImportQuery());
+    Schema schema = getRuntimeSchema(context.getOutputSchema(), config, () -> new SnowflakeSourceAccessor(config));
     this.transformer = new SnowflakeMapToRecordTransformer(schema);
   }
 
+  /**
+   * Output schema is resolved when the pipeline is deployed, so executors usually do not describe the query. It is
+   * unknown if the connection properties were macros or the connection failed at that time, in which case the schema
+   * is taken from the config or the query is described at runtime.
+   *
+   * @param outputSchema output schema of the stage, if known at deployment.
+   * @param config config with macros evaluated.
+   * @param accessor supplies accessor used to describe the import query.
+   * @return output schema of the source.
+   */
+  static Schema getRuntimeSchema(@Nullable Schema outputSchema, SnowflakeBatchSourceConfig config,
+                                 Supplier<SnowflakeSourceAccessor> accessor) throws IOException {
+    if (outputSchema != null) {
+      return outputSchema;
+    }
+    if (!Strings.isNullOrEmpty(config.getSchema())) {
+      return Schema.parseJson(config.getSchema());
+    }
+    return SchemaHelper.getSchema(accessor.get(), config.getImportQuery(), config.getNarrowNumericTypes());
+  }
+
   @Override
-  public void transform(KeyValue<NullWritable, Map<String, String>> input,
+  public void transform(KeyValue<NullWritable, SnowflakeRow> input,
                         Emitter<StructuredRecord> emitter) {
     StructuredRecord record = transformer.transform(input.getValue());
     emitter.emit(record);
@@ -19,7 +19,12 @@ package io.cdap.plugin.snowflake.source.batch;
 import io.cdap.cdap.api.annotation.Description;
 import io.cdap.cdap.api.annotation.Macro;
 import io.cdap.cdap.api.annotation.Name;
+import io.cdap.cdap.etl.api.FailureCollector;
+import io.cdap.cdap.etl.api.validation.InvalidConfigPropertyException;
 import io.cdap.plugin.snowflake.common.BaseSnowflakeConfig;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 
 /**
@@ -31,6 +36,22 @@ public class SnowflakeBatchSourceConfig extends BaseSnowflakeConfig {
   public static final String PROPERTY_IMPORT_QUERY = "importQuery";
   public static final String PROPERTY_MAX_SPLIT_SIZE = "maxSplitSize";
   public static final String PROPERTY_SCHEMA = "schema";
+  public static final String PROPERTY_NARROW_NUMERIC_TYPES = "narrowNumericTypes";
+  public static final String PROPERTY_READ_MODE = "readMode";
+  public static final String PROPERTY_DIRECT_READ_THRESHOLD = "directReadThreshold";
+  public static final String PROPERTY_STAGE_FORMAT = "stageFormat";
+  public static final String PROPERTY_STAGE_COMPRESSION = "stageCompression";
+  public static final String PROPERTY_PREFETCH_MEMORY = "prefetchMemory";
+  public static final String PROPERTY_DOWNLOAD_RETRIES = "downloadRetries";
+  public static final String PROPERTY_MIN_SPLIT_SIZE = "minSplitSize";
+  public static final String PROPERTY_AUTO_SPLIT_SIZE = "autoSplitSize";
+  public static final String PROPERTY_TARGET_WAVES = "targetWaves";
+
+  private static final long DEFAULT_DIRECT_READ_THRESHOLD = 0;
+  private static final long DEFAULT_PREFETCH_MEMORY = 4 * 1024 * 1024;
+  private static final int DEFAULT_DOWNLOAD_RETRIES = 3;
+  private static final long DEFAULT_MIN_SPLIT_SIZE = 4 * 1024 * 1024;
+  private static final int DEFAULT_TARGET_WAVES = 2;
 
   @Name(PROPERTY_REFERENCE_NAME)
   @Description("This will be used to uniquely identify this source/sink for lineage, annotating metadata, etc.")
@@ -42,6 +63,7 @@ public class SnowflakeBatchSourceConfig extends BaseSnowflakeConfig {
   private String importQuery;
 
   @Name(PROPERTY_MAX_SPLIT_SIZE)
+  @Nullable
   @Description("Maximum split size specified in bytes.")
   @Macro
   private Long maxSplitSize;
@@ -52,19 +74,108 @@ public class SnowflakeBatchSourceConfig extends BaseSnowflakeConfig {
   @Macro
   private String schema;
 
+  @Name(PROPERTY_NARROW_NUMERIC_TYPES)
+  @Nullable
+  @Description("If true, numeric columns are mapped to int, long or decimal based on their precision and scale. " +
+    "Otherwise all numbers are mapped to decimals of maximum precision.")
+  private Boolean narrowNumericTypes;
+
+  @Name(PROPERTY_READ_MODE)
+  @Nullable
+  @Description("How the result of the import query is read. 'Stage' copies it into stage files, which are " +
+    "downloaded by the tasks. 'Result Chunks' runs the query once and lets the tasks download the " +
+    "chunks of its result directly.")
+  @Macro
+  private String readMode;
+
+  @Name(PROPERTY_DIRECT_READ_THRESHOLD)
+  @Nullable
+  @Description("Queries whose plan scans at most this number of bytes of table data are read from their result " +
+    "chunks, without staging the result. The scanned size is not the result size. Set to 0 to disable.")
+  @Macro
+  private Long directReadThreshold;
+
+  @Name(PROPERTY_STAGE_FORMAT)
+  @Nullable
+  @Description("Format of the stage files the result of the import query is copied into in 'Stage' read mode. " +
+    "'Parquet' files are usually smaller than compressed 'CSV' files and their values are decoded " +
+    "without parsing text.")
+  @Macro
+  private String stageFormat;
+
+  @Name(PROPERTY_STAGE_COMPRESSION)
+  @Nullable
+  @Description("Compression of CSV stage files. Faster codecs, such as 'ZSTD', lower the CPU cost of " +
+    "decompressing the files in the tasks.")
+  @Macro
+  private String stageCompression;
+
+  @Name(PROPERTY_PREFETCH_MEMORY)
+  @Nullable
+  @Description("Memory in bytes each task uses to download and decompress CSV stage files ahead of parsing " +
+    "them. Set to 0 to disable.")
+  @Macro
+  private Long prefetchMemory;
+
+  @Name(PROPERTY_DOWNLOAD_RETRIES)
+  @Nullable
+  @Description("Number of times reading a stage file is resumed after consecutive transient failures of its " +
+    "download.")
+  @Macro
+  private Integer downloadRetries;
+
+  @Name(PROPERTY_MIN_SPLIT_SIZE)
+  @Nullable
+  @Description("Stage files smaller than this number of bytes are combined into splits of at least this " +
+    "size, each read by a single task. Set to 0 to read every file in its own split.")
+  @Macro
+  private Long minSplitSize;
+
+  @Name(PROPERTY_AUTO_SPLIT_SIZE)
+  @Nullable
+  @Description("If true, the size of stage files is chosen from the number of bytes the import query scans, taken " +
+    "as an upper bound of its result size, and the number of task slots of the engine, instead of Maximum " +
+    "Split Size.")
+  @Macro
+  private Boolean autoSplitSize;
+
+  @Name(PROPERTY_TARGET_WAVES)
+  @Nullable
+  @Description("Number of waves of tasks the result is read in, if the split size is chosen automatically.")
+  @Macro
+  private Integer targetWaves;
+
   public SnowflakeBatchSourceConfig(String referenceName, String accountName, String database,
                                     String schemaName, String importQuery, String username, String password,
                                     @Nullable Boolean keyPairEnabled, @Nullable String path,
                                     @Nullable String passphrase, @Nullable Boolean oauth2Enabled,
                                     @Nullable String clientId, @Nullable String clientSecret,
-                                    @Nullable String refreshToken, Long maxSplitSize,
-                                    @Nullable String connectionArguments, @Nullable String schema) {
+                                    @Nullable String refreshToken, @Nullable Long maxSplitSize,
+                                    @Nullable String connectionArguments, @Nullable String schema,
+                                    @Nullable Boolean narrowNumericTypes, @Nullable String readMode,
+                                    @Nullable Long directReadThreshold, @Nullable String stageFormat,
+                                    @Nullable String stageCompression,
+                                    @Nullable Long prefetchMemory,
+                                    @Nullable Integer downloadRetries,
+                                    @Nullable Long minSplitSize,
+                                    @Nullable Boolean autoSplitSize,
+                                    @Nullable Integer targetWaves) {
     super(accountName, database, schemaName, username, password,
           keyPairEnabled, path, passphrase, oauth2Enabled, clientId, clientSecret, refreshToken, connectionArguments);
     this.referenceName = referenceName;
     this.importQuery = importQuery;
     this.maxSplitSize = maxSplitSize;
     this.schema = schema;
+    this.narrowNumericTypes = narrowNumericTypes;
+    this.readMode = readMode;
+    this.directReadThreshold = directReadThreshold;
+    this.stageFormat = stageFormat;
+    this.stageCompression = stageCompression;
+    this.prefetchMemory = prefetchMemory;
+    this.downloadRetries = downloadRetries;
+    this.minSplitSize = minSplitSize;
+    this.autoSplitSize = autoSplitSize;
+    this.targetWaves = targetWaves;
   }
 
   public String getImportQuery() {
@@ -72,7 +183,7 @@ public class SnowflakeBatchSourceConfig extends BaseSnowflakeConfig {
   }
 
   public Long getMaxSplitSize() {
-    return maxSplitSize;
+    return maxSplitSize == null ? 0L : maxSplitSize;
   }
 
   public String getReferenceName() {
@@ -83,4 +194,116 @@ public class SnowflakeBatchSourceConfig extends BaseSnowflakeConfig {
   public String getSchema() {
     return schema;
   }
+
+  public boolean getNarrowNumericTypes() {
+    return narrowNumericTypes != null && narrowNumericTypes;
+  }
+
+  public ReadMode getReadMode() {
+    if (readMode == null) {
+      return ReadMode.STAGE;
+    }
+    return Stream.of(ReadMode.values())
+      .filter(mode -> mode.getValue().equalsIgnoreCase(readMode))
+      .findAny()
+      .orElseThrow(() -> new InvalidConfigPropertyException(
+        String.format("Unsupported value for '%s': '%s'", PROPERTY_READ_MODE, readMode), PROPERTY_READ_MODE));
+  }
+
+  @Override
+  public void validate(FailureCollector collector) {
+    if (!containsMacro(PROPERTY_READ_MODE)) {
+      try {
+        getReadMode();
+      } catch (InvalidConfigPropertyException e) {
+        collector.addFailure(e.getMessage(), String.format("Supported values are: %s.", Arrays.toString(
+          ReadMode.values()))).withConfigProperty(PROPERTY_READ_MODE);
+      }
+    }
+    if (!containsMacro(PROPERTY_STAGE_FORMAT)) {
+      try {
+        getStageFormat();
+      } catch (InvalidConfigPropertyException e) {
+        collector.addFailure(e.getMessage(), String.format("Supported values are: %s.", Arrays.toString(
+          StageFormat.values()))).withConfigProperty(PROPERTY_STAGE_FORMAT);
+      }
+    }
+    if (!containsMacro(PROPERTY_STAGE_COMPRESSION)) {
+      try {
+        getStageCompression();
+      } catch (InvalidConfigPropertyException e) {
+        collector.addFailure(e.getMessage(), String.format("Supported values are: %s.", Arrays.toString(
+          StageCompression.values()))).withConfigProperty(PROPERTY_STAGE_COMPRESSION);
+      }
+    }
+    if (!containsMacro(PROPERTY_DIRECT_READ_THRESHOLD) && getDirectReadThreshold() < 0) {
+      collector.addFailure("Direct Read Threshold must not be negative.", null)
+        .withConfigProperty(PROPERTY_DIRECT_READ_THRESHOLD);
+    }
+    if (!containsMacro(PROPERTY_PREFETCH_MEMORY) && getPrefetchMemory() < 0) {
+      collector.addFailure("Prefetch Memory must not be negative.", null)
+        .withConfigProperty(PROPERTY_PREFETCH_MEMORY);
+    }
+    if (!containsMacro(PROPERTY_DOWNLOAD_RETRIES) && getDownloadRetries() < 0) {
+      collector.addFailure("Download Retries must not be negative.", null)
+        .withConfigProperty(PROPERTY_DOWNLOAD_RETRIES);
+    }
+    if (!containsMacro(PROPERTY_MIN_SPLIT_SIZE) && getMinSplitSize() < 0) {
+      collector.addFailure("Minimum Split Size must not be negative.", null)
+        .withConfigProperty(PROPERTY_MIN_SPLIT_SIZE);
+    }
+    if (!containsMacro(PROPERTY_TARGET_WAVES) && getTargetWaves() < 1) {
+      collector.addFailure("Target Waves must be at least 1.", null)
+        .withConfigProperty(PROPERTY_TARGET_WAVES);
+    }
+    super.validate(collector);
+  }
+
+  public long getDirectReadThreshold() {
+    return directReadThreshold == null ? DEFAULT_DIRECT_READ_THRESHOLD : directReadThreshold;
+  }
+
+  public StageFormat getStageFormat() {
+    if (stageFormat == null) {
+      return StageFormat.CSV;
+    }
+    return Stream.of(StageFormat.values())
+      .filter(format -> format.getValue().equalsIgnoreCase(stageFormat))
+      .findAny()
+      .orElseThrow(() -> new InvalidConfigPropertyException(
+        String.format("Unsupported value for '%s': '%s'", PROPERTY_STAGE_FORMAT, stageFormat),
+        PROPERTY_STAGE_FORMAT));
+  }
+
+  public StageCompression getStageCompression() {
+    if (stageCompression == null) {
+      return StageCompression.GZIP;
+    }
+    return Stream.of(StageCompression.values())
+      .filter(compression -> compression.getValue().equalsIgnoreCase(stageCompression))
+      .findAny()
+      .orElseThrow(() -> new InvalidConfigPropertyException(
+        String.format("Unsupported value for '%s': '%s'", PROPERTY_STAGE_COMPRESSION, stageCompression),
+        PROPERTY_STAGE_COMPRESSION));
+  }
+
+  public long getPrefetchMemory() {
+    return prefetchMemory == null ? DEFAULT_PREFETCH_MEMORY : prefetchMemory;
+  }
+
+  public int getDownloadRetries() {
+    return downloadRetries == null ? DEFAULT_DOWNLOAD_RETRIES : downloadRetries;
+  }
+
+  public long getMinSplitSize() {
+    return minSplitSize == null ? DEFAULT_MIN_SPLIT_SIZE : minSplitSize;
+  }
+
+  public boolean getAutoSplitSize() {
+    return autoSplitSize != null && autoSplitSize;
+  }
+
+  public int getTargetWaves() {
+    return targetWaves == null ? DEFAULT_TARGET_WAVES : targetWaves;
+  }
 }
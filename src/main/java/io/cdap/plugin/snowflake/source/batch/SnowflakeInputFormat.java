@@ -19,47 +19,197 @@ package io.cdap.plugin.snowflake.source.batch;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import io.cdap.cdap.api.data.schema.Schema;
+import net.snowflake.client.jdbc.SnowflakeResultSetSerializable;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.NullWritable;
 import org.apache.hadoop.mapreduce.InputFormat;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.JobContext;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 /**
  * Input format class which generates input splits for each given object
  * and initializes appropriate record reader.
  */
-public class SnowflakeInputFormat extends InputFormat {
+public class SnowflakeInputFormat extends InputFormat<NullWritable, SnowflakeRow> {
 
+  private static final Logger LOG = LoggerFactory.getLogger(SnowflakeInputFormat.class);
   private static final Gson GSON = new Gson();
+  // number of records shown in preview by default
+  private static final int PREVIEW_LIMIT = 100;
+  // counters of the record readers
+  static final String COUNTER_GROUP = "Snowflake Source";
+  static final String COUNTER_ROWS_READ = "Rows read";
+  static final String COUNTER_STAGE_BYTES_READ = "Stage bytes read";
+  // Snowflake default and maximum of MAX_FILE_SIZE
+  private static final long MIN_AUTO_SPLIT_SIZE = 16 * 1024 * 1024;
+  private static final long MAX_AUTO_SPLIT_SIZE = 5L * 1024 * 1024 * 1024;
 
   @Override
   public List<InputSplit> getSplits(JobContext jobContext) throws IOException {
-    SnowflakeSourceAccessor snowflakeAccessor = getSnowflakeAccessor(jobContext.getConfiguration());
-    List<String> stageSplits = snowflakeAccessor.prepareStageSplits();
-    return stageSplits.stream()
-      .map(SnowflakeSplit::new)
-      .collect(Collectors.toList());
+    SnowflakeBatchSourceConfig config = getConfig(jobContext.getConfiguration());
+    SnowflakeSourceAccessor snowflakeAccessor = new SnowflakeSourceAccessor(config);
+    if (jobContext.getConfiguration().getBoolean(SnowflakeInputFormatProvider.PROPERTY_PREVIEW, false)) {
+      LOG.info("Reading at most {} rows of the import query result in preview.", PREVIEW_LIMIT);
+      return getResultChunkSplits(snowflakeAccessor.preparePreviewResultChunks(PREVIEW_LIMIT));
+    }
+    if (config.getReadMode() == ReadMode.RESULT_CHUNKS) {
+      return getResultChunkSplits(snowflakeAccessor.prepareResultChunks());
+    }
+    long directReadThreshold = config.getDirectReadThreshold();
+    long estimatedBytes = directReadThreshold > 0 || config.getAutoSplitSize()
+      ? snowflakeAccessor.estimateScannedBytes() : -1;
+    if (directReadThreshold > 0 && estimatedBytes >= 0 && estimatedBytes <= directReadThreshold) {
+      LOG.info("Import query is estimated to scan {} bytes, reading its result chunks directly without staging.",
+               estimatedBytes);
+      return getResultChunkSplits(snowflakeAccessor.prepareResultChunks());
+    }
+    long maxSplitSize = config.getMaxSplitSize();
+    if (config.getAutoSplitSize()) {
+      maxSplitSize = getAutoSplitSize(estimatedBytes, jobContext.getConfiguration(), config.getTargetWaves(),
+                                      maxSplitSize);
+    }
+    String stagePath = jobContext.getConfiguration().get(SnowflakeInputFormatProvider.PROPERTY_STAGE_PATH);
+    List<StageFile> stageFiles = snowflakeAccessor.prepareStageSplits(stagePath, maxSplitSize);
+    List<InputSplit> splits = new ArrayList<>(getStageSplits(stageFiles, config.getMinSplitSize()));
+    LOG.info("Import query result is staged in {} files, read in {} splits.", stageFiles.size(), splits.size());
+    return splits;
+  }
+
+  private static long getAutoSplitSize(long estimatedBytes, Configuration configuration, int waves,
+                                       long maxSplitSize) {
+    if (estimatedBytes < 0) {
+      LOG.info("Size of the import query cannot be estimated, using Maximum Split Size of {} bytes.", maxSplitSize);
+      return maxSplitSize;
+    }
+    // Spark driver has its configuration in system properties
+    int taskSlots = getTaskSlots(key -> configuration.get(key, System.getProperty(key)));
+    long splitSize = getAutoSplitSize(estimatedBytes, taskSlots, waves);
+    LOG.info("Import query scans {} bytes according to its plan. Taking it as an upper bound of the result size, " +
+               "using split size of {} bytes to read it with {} task slots in {} waves.",
+             estimatedBytes, splitSize, taskSlots, waves);
+    return splitSize;
+  }
+
+  /**
+   * Chooses split size, so that the result is read in the given number of waves of tasks.
+   *
+   * @param estimatedBytes upper bound of the result size, such as the number of bytes the query scans.
+   * @param taskSlots number of tasks that run at the same time.
+   * @param waves number of waves of tasks.
+   * @return split size in bytes, within the limits of the stage file size.
+   */
+  static long getAutoSplitSize(long estimatedBytes, int taskSlots, int waves) {
+    long splits = (long) taskSlots * waves;
+    long splitSize = (estimatedBytes + splits - 1) / splits;
+    return Math.max(MIN_AUTO_SPLIT_SIZE, Math.min(splitSize, MAX_AUTO_SPLIT_SIZE));
+  }
+
+  /**
+   * Finds number of tasks the engine runs at the same time: executors times cores for Spark, the limit of running
+   * maps for MapReduce, or the number of processors if neither is configured.
+   *
+   * @param properties engine properties.
+   * @return number of task slots.
+   */
+  static int getTaskSlots(Function<String, String> properties) {
+    boolean dynamicAllocation = Boolean.parseBoolean(properties.apply("spark.dynamicAllocation.enabled"));
+    int executors = getInt(properties, dynamicAllocation
+      ? "spark.dynamicAllocation.maxExecutors" : "spark.executor.instances");
+    if (executors > 0) {
+      return executors * Math.max(getInt(properties, "spark.executor.cores"), 1);
+    }
+    int runningMaps = getInt(properties, "mapreduce.job.running.map.limit");
+    if (runningMaps > 0) {
+      return runningMaps;
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  private static int getInt(Function<String, String> properties, String key) {
+    String value = properties.apply(key);
+    try {
+      return value == null ? 0 : Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Groups stage files into splits. Files smaller than the minimum split size are packed together into splits of at
+   * least that size, other files are read in their own splits. Splits are ordered from the largest, so that the
+   * longest tasks start first.
+   *
+   * @param stageFiles files in Snowflake stage.
+   * @param minSplitSize minimum size of a split in bytes.
+   * @return splits ordered by size, descending.
+   */
+  static List<SnowflakeSplit> getStageSplits(List<StageFile> stageFiles, long minSplitSize) {
+    List<StageFile> sortedFiles = new ArrayList<>(stageFiles);
+    sortedFiles.sort(Comparator.comparingLong(StageFile::getSize).reversed());
+    List<SnowflakeSplit> splits = new ArrayList<>();
+    List<StageFile> smallFiles = new ArrayList<>();
+    long smallFilesSize = 0;
+    for (StageFile stageFile : sortedFiles) {
+      if (stageFile.getSize() >= minSplitSize) {
+        splits.add(new SnowflakeSplit(stageFile));
+        continue;
+      }
+      smallFiles.add(stageFile);
+      smallFilesSize += stageFile.getSize();
+      if (smallFilesSize >= minSplitSize) {
+        splits.add(new SnowflakeSplit(smallFiles));
+        smallFiles.clear();
+        smallFilesSize = 0;
+      }
+    }
+    if (!smallFiles.isEmpty()) {
+      splits.add(new SnowflakeSplit(smallFiles));
+    }
+    splits.sort(Comparator.comparingLong(SnowflakeSplit::getLength).reversed());
+    return splits;
   }
 
   @Override
-  public RecordReader createRecordReader(InputSplit inputSplit,
-                                         TaskAttemptContext context) {
+  public RecordReader<NullWritable, SnowflakeRow> createRecordReader(InputSplit inputSplit,
+                                                                      TaskAttemptContext context) throws IOException {
+    if (inputSplit instanceof SnowflakeResultChunkSplit) {
+      return new SnowflakeResultChunkRecordReader();
+    }
     SnowflakeSplit snowflakeSplit = (SnowflakeSplit) inputSplit;
-    SnowflakeSourceAccessor snowflakeAccessor = getSnowflakeAccessor(context.getConfiguration());
-    return new SnowflakeRecordReader(snowflakeSplit.getStageSplit(), snowflakeAccessor);
+    SnowflakeBatchSourceConfig config = getConfig(context.getConfiguration());
+    SnowflakeSourceAccessor snowflakeAccessor = new SnowflakeSourceAccessor(config);
+    if (config.getStageFormat() == StageFormat.PARQUET) {
+      // Parquet files are decoded straight into the output schema resolved when the pipeline was submitted
+      Schema schema = Schema.parseJson(
+        context.getConfiguration().get(SnowflakeInputFormatProvider.PROPERTY_SCHEMA_JSON));
+      return new SnowflakeParquetRecordReader(snowflakeSplit.getStageFiles(), snowflakeAccessor, schema);
+    }
+    return new SnowflakeRecordReader(snowflakeSplit.getStageFiles(), snowflakeAccessor);
+  }
+
+  private List<InputSplit> getResultChunkSplits(List<SnowflakeResultSetSerializable> resultChunks)
+    throws IOException {
+    List<InputSplit> splits = new ArrayList<>();
+    for (SnowflakeResultSetSerializable resultChunk : resultChunks) {
+      splits.add(new SnowflakeResultChunkSplit(resultChunk));
+    }
+    return splits;
   }
 
-  private SnowflakeSourceAccessor getSnowflakeAccessor(Configuration configuration) {
+  private SnowflakeBatchSourceConfig getConfig(Configuration configuration) {
     String configJson = configuration.get(
       SnowflakeInputFormatProvider.PROPERTY_CONFIG_JSON);
-    SnowflakeBatchSourceConfig config = GSON.fromJson(
-      configJson, SnowflakeBatchSourceConfig.class);
-    return new SnowflakeSourceAccessor(config);
+    return GSON.fromJson(configJson, SnowflakeBatchSourceConfig.class);
   }
 }
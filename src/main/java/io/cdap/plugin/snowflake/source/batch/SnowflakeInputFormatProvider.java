@@ -20,6 +20,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import io.cdap.cdap.api.data.batch.InputFormatProvider;
+import io.cdap.cdap.api.data.schema.Schema;
 
 import java.util.Map;
 
@@ -29,13 +30,26 @@ import java.util.Map;
 public class SnowflakeInputFormatProvider implements InputFormatProvider {
 
   public static final String PROPERTY_CONFIG_JSON = "cdap.snowflake.source.config";
+  public static final String PROPERTY_SCHEMA_JSON = "cdap.snowflake.source.schema";
+  public static final String PROPERTY_PREVIEW = "cdap.snowflake.source.preview";
+  public static final String PROPERTY_STAGE_PATH = "cdap.snowflake.source.stage.path";
 
   private static final Gson GSON = new Gson();
   private final Map<String, String> conf;
 
-  public SnowflakeInputFormatProvider(SnowflakeBatchSourceConfig config) {
+  /**
+   * @param config source config.
+   * @param schema output schema resolved at submission time, so that executors do not need to describe the query.
+   * @param preview whether the pipeline runs in preview, where only a few records are read.
+   * @param stagePath directory in Snowflake stage, where the result of the run is staged.
+   */
+  public SnowflakeInputFormatProvider(SnowflakeBatchSourceConfig config, Schema schema, boolean preview,
+                                      String stagePath) {
     this.conf = new ImmutableMap.Builder<String, String>()
       .put(PROPERTY_CONFIG_JSON, GSON.toJson(config))
+      .put(PROPERTY_SCHEMA_JSON, schema.toString())
+      .put(PROPERTY_PREVIEW, Boolean.toString(preview))
+      .put(PROPERTY_STAGE_PATH, stagePath)
       .build();
   }
 
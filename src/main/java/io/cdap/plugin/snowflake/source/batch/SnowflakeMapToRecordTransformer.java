@@ -16,59 +16,84 @@
 
 package io.cdap.plugin.snowflake.source.batch;
 
-import com.google.common.base.Strings;
 import io.cdap.cdap.api.data.format.StructuredRecord;
 import io.cdap.cdap.api.data.format.UnexpectedFormatException;
 import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.plugin.snowflake.common.util.DateTimeParser;
+import io.cdap.plugin.snowflake.common.util.DecimalParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.math.BigDecimal;
-import java.time.Instant;
-import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
-import javax.annotation.Nullable;
+import java.util.List;
 
 /**
  * Transforms Snowflake row into {@link StructuredRecord}.
+ *
+ * The output schema is compiled once into an array of per-field converters, which is bound to the column positions
+ * of the row once per split, so that converting a row does not inspect the schema or look up columns by name.
  */
 public class SnowflakeMapToRecordTransformer {
   private static final Logger LOG = LoggerFactory.getLogger(SnowflakeMapToRecordTransformer.class);
 
   private final Schema schema;
+  private final String[] fieldNames;
+  private final FieldConverter[] converters;
+  private final int[] columnIndexes;
+  private String[] boundColumnNames;
 
   public SnowflakeMapToRecordTransformer(Schema schema) {
     this.schema = schema;
+    List<Schema.Field> fields = schema.getFields();
+    this.fieldNames = new String[fields.size()];
+    this.converters = new FieldConverter[fields.size()];
+    this.columnIndexes = new int[fields.size()];
+    for (int i = 0; i < fields.size(); i++) {
+      Schema.Field field = fields.get(i);
+      fieldNames[i] = field.getName();
+      converters[i] = compileConverter(field.getName(), field.getSchema());
+    }
   }
 
-  public StructuredRecord transform(Map<String, String> row) {
-    return getStructuredRecord(row, schema);
-  }
-
-  private StructuredRecord getStructuredRecord(Map<String, String> row, Schema schema) {
+  public StructuredRecord transform(SnowflakeRow row) {
+    StructuredRecord record = row.getRecord();
+    if (record != null) {
+      // already decoded by the record reader
+      return record;
+    }
+    if (row.getColumnNames() != boundColumnNames) {
+      bind(row);
+    }
     StructuredRecord.Builder builder = StructuredRecord.builder(schema);
-    row.entrySet().stream()
-      .filter(entry -> schema.getField(entry.getKey()) != null) // filter absent fields in the schema
-      .forEach(entry -> builder.set(
-        entry.getKey(),
-        convertValue(entry.getKey(), entry.getValue(), schema.getField(entry.getKey()).getSchema())));
+    for (int i = 0; i < converters.length; i++) {
+      int columnIndex = columnIndexes[i];
+      if (columnIndex < 0) {
+        // absent fields in the row
+        continue;
+      }
+      String value = row.get(columnIndex);
+      if (value == null) {
+        continue;
+      }
+      // empty string is considered null in csv
+      builder.set(fieldNames[i], value.isEmpty() ? null : converters[i].convert(value));
+    }
     return builder.build();
   }
 
-  @Nullable
-  private Object convertValue(String fieldName, String value, Schema fieldSchema) {
-    if (fieldSchema.isNullable()) {
-      return convertValue(fieldName, value, fieldSchema.getNonNullable());
+  /**
+   * Resolves column positions of the schema fields. Rows of the same split share column names, so this is done
+   * once per split.
+   */
+  private void bind(SnowflakeRow row) {
+    for (int i = 0; i < fieldNames.length; i++) {
+      columnIndexes[i] = row.getColumnIndex(fieldNames[i]);
     }
+    boundColumnNames = row.getColumnNames();
+  }
 
-    Schema.Type fieldSchemaType = fieldSchema.getType();
-
-    // empty string is considered null in csv
-    if (value == null || Strings.isNullOrEmpty(value)) {
-      return null;
+  static FieldConverter compileConverter(String fieldName, Schema fieldSchema) {
+    if (fieldSchema.isNullable()) {
+      return compileConverter(fieldName, fieldSchema.getNonNullable());
     }
 
     Schema.LogicalType logicalType = fieldSchema.getLogicalType();
@@ -76,46 +101,46 @@ public class SnowflakeMapToRecordTransformer {
       switch (logicalType) {
         case DATE:
           // date will be in yyyy-mm-dd format
-          return Math.toIntExact(LocalDate.parse(value).toEpochDay());
+          return DateTimeParser::parseDate;
         case TIMESTAMP_MICROS:
-          Instant instant = DateTimeFormatter.ISO_OFFSET_DATE_TIME.parse(value, Instant::from);
-          return TimeUnit.MILLISECONDS.toMicros(instant.toEpochMilli());
+          return DateTimeParser::parseTimestampMicros;
         case TIME_MICROS:
-          return TimeUnit.NANOSECONDS.toMicros(LocalTime.parse(value).toNanoOfDay());
+          return DateTimeParser::parseTimeMicros;
         case DECIMAL:
-          return new BigDecimal(value).setScale(fieldSchema.getScale()).unscaledValue().toByteArray();
+          int scale = fieldSchema.getScale();
+          return value -> DecimalParser.parseUnscaledBytes(value, scale);
         default:
-          throw new IllegalArgumentException(
-            String.format("Field '%s' is of unsupported type '%s'", fieldSchema.getDisplayName(),
-                          logicalType.getToken()));
+          String message = String.format("Field '%s' is of unsupported type '%s'", fieldSchema.getDisplayName(),
+                                         logicalType.getToken());
+          return value -> {
+            throw new IllegalArgumentException(message);
+          };
       }
     }
 
-    switch (fieldSchemaType) {
+    switch (fieldSchema.getType()) {
       case NULL:
-        return null;
+        return value -> null;
       case BYTES:
         // decode hex value
-        return hexStringToByteArray(value);
+        return SnowflakeMapToRecordTransformer::hexStringToByteArray;
       case BOOLEAN:
-        return Boolean.parseBoolean(castValue(value, fieldName, String.class));
+        return Boolean::parseBoolean;
+      case INT:
+        return Integer::parseInt;
+      case LONG:
+        return Long::parseLong;
       case DOUBLE:
-        return Double.parseDouble(castValue(value, fieldName, String.class));
+        return Double::parseDouble;
       case STRING:
-        return value;
+        return value -> value;
     }
 
-    throw new UnexpectedFormatException(
-      String.format("Unsupported schema type: '%s' for field: '%s'. Supported types are 'bytes, boolean, "
-                      + "double, string'.", fieldSchema, fieldName));
-  }
-
-  private static <T> T castValue(Object value, String fieldName, Class<T> clazz) {
-    if (clazz.isAssignableFrom(value.getClass())) {
-      return clazz.cast(value);
-    }
-    throw new UnexpectedFormatException(
-      String.format("Field '%s' is not of expected type '%s'", fieldName, clazz.getSimpleName()));
+    String message = String.format("Unsupported schema type: '%s' for field: '%s'. Supported types are 'bytes, "
+                                     + "boolean, int, long, double, string'.", fieldSchema, fieldName);
+    return value -> {
+      throw new UnexpectedFormatException(message);
+    };
   }
 
   private static byte[] hexStringToByteArray(String s) {
@@ -127,4 +152,11 @@ public class SnowflakeMapToRecordTransformer {
     }
     return data;
   }
+
+  /**
+   * Converts non-empty CSV value into the representation of the field in {@link StructuredRecord}.
+   */
+  interface FieldConverter {
+    Object convert(String value);
+  }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * RecordReader implementation, which reads Parquet stage files of a split back to back. Values are decoded from
+ * their Parquet types directly into records of the output schema. The number of rows and bytes read are reported in
+ * counters.
+ */
+public class SnowflakeParquetRecordReader extends RecordReader<NullWritable, SnowflakeRow> {
+
+  private static final int COUNTER_UPDATE_ROWS = 1000;
+
+  private final List<StageFile> stageFiles;
+  private final SnowflakeSourceAccessor snowflakeAccessor;
+  private final Schema schema;
+  private final long length;
+  private int fileIndex;
+  // total size of the files read before the current one
+  private long bytesRead;
+  private SpoolFile spoolFile;
+  private ParquetStageFileReader reader;
+  private StructuredRecord record;
+  private SnowflakeRow row;
+  private Counter rowsCounter;
+  private Counter bytesCounter;
+  private long rowsNotCounted;
+
+  public SnowflakeParquetRecordReader(List<StageFile> stageFiles, SnowflakeSourceAccessor snowflakeAccessor,
+                                      Schema schema) {
+    this.stageFiles = stageFiles;
+    this.snowflakeAccessor = snowflakeAccessor;
+    this.schema = schema;
+    this.length = stageFiles.stream().mapToLong(StageFile::getSize).sum();
+  }
+
+  @Override
+  public void initialize(InputSplit inputSplit, TaskAttemptContext context) throws IOException {
+    this.rowsCounter = context.getCounter(SnowflakeInputFormat.COUNTER_GROUP, SnowflakeInputFormat.COUNTER_ROWS_READ);
+    this.bytesCounter = context.getCounter(SnowflakeInputFormat.COUNTER_GROUP,
+                                           SnowflakeInputFormat.COUNTER_STAGE_BYTES_READ);
+    openNextFile();
+    this.row = new SnowflakeRow(() -> record);
+  }
+
+  @Override
+  public boolean nextKeyValue() throws IOException {
+    while ((record = reader.next()) == null) {
+      if (fileIndex == stageFiles.size()) {
+        updateRowsCounter();
+        return false;
+      }
+      bytesRead += stageFiles.get(fileIndex - 1).getSize();
+      openNextFile();
+    }
+    if (++rowsNotCounted == COUNTER_UPDATE_ROWS) {
+      updateRowsCounter();
+    }
+    return true;
+  }
+
+  @Override
+  public NullWritable getCurrentKey() {
+    return NullWritable.get();
+  }
+
+  @Override
+  public SnowflakeRow getCurrentValue() {
+    return row;
+  }
+
+  @Override
+  public float getProgress() {
+    if (length == 0 || reader == null) {
+      return (float) fileIndex / stageFiles.size();
+    }
+    // rows of the current file are assumed to be of the same size
+    long fileSize = stageFiles.get(fileIndex - 1).getSize();
+    double fileProgress = reader.getRowCount() == 0 ? 0 : (double) reader.getRowsRead() / reader.getRowCount();
+    return (float) ((bytesRead + fileSize * fileProgress) / length);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (reader != null) {
+      updateRowsCounter();
+    }
+    closeFile();
+  }
+
+  private void openNextFile() throws IOException {
+    closeFile();
+    // downloaded to the local disk, so that only the row group being read is held in memory
+    spoolFile = snowflakeAccessor.downloadStageFile(stageFiles.get(fileIndex++).getName());
+    bytesCounter.increment(spoolFile.getLength());
+    reader = new ParquetStageFileReader(new LocalInputFile(spoolFile.getPath()), schema);
+  }
+
+  private void closeFile() throws IOException {
+    try {
+      if (reader != null) {
+        reader.close();
+        reader = null;
+      }
+    } finally {
+      if (spoolFile != null) {
+        spoolFile.close();
+        spoolFile = null;
+      }
+    }
+  }
+
+  private void updateRowsCounter() {
+    rowsCounter.increment(rowsNotCounted);
+    rowsNotCounted = 0;
+  }
+}
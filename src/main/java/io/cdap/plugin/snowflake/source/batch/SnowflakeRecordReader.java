@@ -16,42 +16,80 @@
 
 package io.cdap.plugin.snowflake.source.batch;
 
-import au.com.bytecode.opencsv.CSVReader;
+import io.cdap.plugin.snowflake.common.util.ResumableInputStream;
 import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.Counter;
 import org.apache.hadoop.mapreduce.InputSplit;
 import org.apache.hadoop.mapreduce.RecordReader;
 import org.apache.hadoop.mapreduce.TaskAttemptContext;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
- * RecordReader implementation, which reads object from Snowflake.
+ * RecordReader implementation, which reads object from Snowflake. Stage files of the split are read back to back.
+ * While a file is parsed, the next one is opened on a background thread, so that the download of the next file
+ * starts before the current one ends.
+ *
+ * Progress is the number of bytes downloaded out of the size of the split. The number of rows and bytes read are
+ * also reported in counters.
  */
-public class SnowflakeRecordReader extends RecordReader<NullWritable, Map<String, String>> {
+public class SnowflakeRecordReader extends RecordReader<NullWritable, SnowflakeRow> {
+
+  private static final int COUNTER_UPDATE_ROWS = 1000;
 
-  private final String stageSplit;
+  private final List<StageFile> stageFiles;
   private final SnowflakeSourceAccessor snowflakeAccessor;
-  private CSVReader csvReader;
-  private String[] headers;
-  private String[] nextLine;
+  private final long length;
+  private int fileIndex;
+  // bytes of the files read before the current one
+  private long previousFilesBytes;
+  private ResumableInputStream stageFile;
+  private CSVTokenizer tokenizer;
+  // next file of the split, opened in the background
+  private ExecutorService nextFileExecutor;
+  private ResumableInputStream nextStageFile;
+  private Future<CSVTokenizer> nextTokenizer;
+  private SnowflakeRow row;
+  private Counter rowsCounter;
+  private Counter bytesCounter;
+  private long rowsNotCounted;
+  private long bytesCounted;
 
-  public SnowflakeRecordReader(String stageSplit, SnowflakeSourceAccessor snowflakeAccessor) {
-    this.stageSplit = stageSplit;
+  public SnowflakeRecordReader(List<StageFile> stageFiles, SnowflakeSourceAccessor snowflakeAccessor) {
+    this.stageFiles = stageFiles;
     this.snowflakeAccessor = snowflakeAccessor;
+    this.length = stageFiles.stream().mapToLong(StageFile::getSize).sum();
   }
 
   @Override
   public void initialize(InputSplit inputSplit, TaskAttemptContext context) throws IOException {
-    this.csvReader = snowflakeAccessor.buildCsvReader(stageSplit);
-    this.headers = csvReader.readNext();
+    this.rowsCounter = context.getCounter(SnowflakeInputFormat.COUNTER_GROUP, SnowflakeInputFormat.COUNTER_ROWS_READ);
+    this.bytesCounter = context.getCounter(SnowflakeInputFormat.COUNTER_GROUP,
+                                           SnowflakeInputFormat.COUNTER_STAGE_BYTES_READ);
+    String[] headers = openNextFile();
+    // all files of the split have the same columns, values are read from the file currently open
+    this.row = new SnowflakeRow(headers == null ? new String[0] : headers, index -> tokenizer.getString(index));
   }
 
   @Override
   public boolean nextKeyValue() throws IOException {
-    nextLine = csvReader.readNext();
-    return nextLine != null;
+    while (!tokenizer.nextRecord()) {
+      if (fileIndex == stageFiles.size()) {
+        updateCounters();
+        return false;
+      }
+      openNextFile();
+    }
+    if (++rowsNotCounted == COUNTER_UPDATE_ROWS) {
+      updateCounters();
+    }
+    return true;
   }
 
   @Override
@@ -60,24 +98,123 @@ public class SnowflakeRecordReader extends RecordReader<NullWritable, Map<String
   }
 
   @Override
-  public Map<String, String> getCurrentValue() {
-    Map<String, String> result = new HashMap<>();
-    for (int i = 0; i < headers.length; i++) {
-      result.put(headers[i], nextLine[i]);
-    }
-    return result;
+  public SnowflakeRow getCurrentValue() {
+    return row;
   }
 
   @Override
   public float getProgress() {
-    return 0;
+    long bytesRead = getBytesRead();
+    if (length == 0) {
+      return bytesRead == 0 ? 0 : 1;
+    }
+    return Math.min((float) bytesRead / length, 1);
   }
 
   @Override
   public void close() throws IOException {
-    if (csvReader != null) {
-      csvReader.close();
+    try {
+      closeNextFile();
+    } finally {
+      if (tokenizer != null) {
+        updateCounters();
+        tokenizer.close();
+      }
+    }
+  }
+
+  /**
+   * Closes the current file and opens the next one, then starts opening the file after it in the background.
+   *
+   * @return column names of the opened file.
+   */
+  private String[] openNextFile() throws IOException {
+    if (tokenizer != null) {
+      tokenizer.close();
+      previousFilesBytes += stageFile.getPosition();
+    }
+    if (nextTokenizer == null) {
+      String stageSplit = stageFiles.get(fileIndex).getName();
+      stageFile = snowflakeAccessor.openStageFile(stageSplit);
+      tokenizer = snowflakeAccessor.buildCsvTokenizer(stageFile, stageSplit);
+    } else {
+      stageFile = nextStageFile;
+      tokenizer = getNextTokenizer();
+      nextStageFile = null;
+      nextTokenizer = null;
+    }
+    fileIndex++;
+    if (fileIndex < stageFiles.size()) {
+      startOpeningNextFile();
+    }
+    return tokenizer.readRecord();
+  }
+
+  /**
+   * Opens the next file on a background thread. Decompressing streams read their header once created, so the
+   * tokenizer is built there too, as well as its read-ahead, if any.
+   */
+  private void startOpeningNextFile() {
+    if (nextFileExecutor == null) {
+      nextFileExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snowflake-next-file");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    String stageSplit = stageFiles.get(fileIndex).getName();
+    ResumableInputStream stream = snowflakeAccessor.openStageFile(stageSplit);
+    nextStageFile = stream;
+    nextTokenizer = nextFileExecutor.submit(() -> snowflakeAccessor.buildCsvTokenizer(stream, stageSplit));
+  }
+
+  private CSVTokenizer getNextTokenizer() throws IOException {
+    try {
+      return nextTokenizer.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while opening " + stageFiles.get(fileIndex).getName() + ".");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * Closes the next file, if it was opened. Closing its stream stops an open in progress.
+   */
+  private void closeNextFile() throws IOException {
+    if (nextFileExecutor == null) {
+      return;
     }
-    snowflakeAccessor.removeStageFile(stageSplit);
+    nextFileExecutor.shutdown();
+    if (nextStageFile == null) {
+      return;
+    }
+    nextStageFile.close();
+    if (nextTokenizer.isDone()) {
+      try {
+        getNextTokenizer().close();
+      } catch (IOException e) {
+        // the file was not opened, there is nothing else to close
+      }
+    }
+  }
+
+  /**
+   * @return number of bytes of the split downloaded so far, which may be ahead of the records parsed.
+   */
+  private long getBytesRead() {
+    return stageFile == null ? 0 : previousFilesBytes + stageFile.getPosition();
+  }
+
+  private void updateCounters() {
+    rowsCounter.increment(rowsNotCounted);
+    rowsNotCounted = 0;
+    long bytesRead = getBytesRead();
+    bytesCounter.increment(bytesRead - bytesCounted);
+    bytesCounted = bytesRead;
   }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import net.snowflake.client.jdbc.SnowflakeResultSetSerializable;
+import org.apache.hadoop.io.NullWritable;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.RecordReader;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * RecordReader implementation, which reads a chunk of the import query result directly from Snowflake.
+ */
+public class SnowflakeResultChunkRecordReader extends RecordReader<NullWritable, SnowflakeRow> {
+
+  private ResultSet resultSet;
+  private SnowflakeRow row;
+  private long rowCount;
+  private long rowsRead;
+
+  @Override
+  public void initialize(InputSplit inputSplit, TaskAttemptContext context) throws IOException {
+    SnowflakeResultSetSerializable resultChunk = ((SnowflakeResultChunkSplit) inputSplit).getResultChunk();
+    try {
+      this.rowCount = resultChunk.getRowCount();
+      this.resultSet = resultChunk.getResultSet();
+      ResultSetMetaData metaData = resultSet.getMetaData();
+      String[] columnNames = new String[metaData.getColumnCount()];
+      for (int i = 0; i < columnNames.length; i++) {
+        columnNames[i] = metaData.getColumnName(i + 1);
+      }
+      this.row = new SnowflakeRow(columnNames, this::getString);
+    } catch (SQLException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public boolean nextKeyValue() throws IOException {
+    try {
+      if (resultSet.next()) {
+        rowsRead++;
+        return true;
+      }
+      return false;
+    } catch (SQLException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public NullWritable getCurrentKey() {
+    return NullWritable.get();
+  }
+
+  @Override
+  public SnowflakeRow getCurrentValue() {
+    return row;
+  }
+
+  @Override
+  public float getProgress() {
+    return rowCount == 0 ? 0 : (float) rowsRead / rowCount;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (resultSet == null) {
+      return;
+    }
+    try {
+      resultSet.close();
+    } catch (SQLException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private String getString(int index) {
+    try {
+      return resultSet.getString(index + 1);
+    } catch (SQLException e) {
+      throw new RuntimeException(String.format("Failed to read column '%s'.", row.getColumnNames()[index]), e);
+    }
+  }
+}
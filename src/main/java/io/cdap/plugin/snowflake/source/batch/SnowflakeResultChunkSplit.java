@@ -0,0 +1,89 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import net.snowflake.client.jdbc.SnowflakeResultSetSerializable;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.mapreduce.InputSplit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.sql.SQLException;
+
+/**
+ * A split holding one chunk of the import query result, which is downloaded directly by the record reader.
+ */
+public class SnowflakeResultChunkSplit extends InputSplit implements Writable {
+
+  private byte[] resultChunk;
+  private long length;
+
+  public SnowflakeResultChunkSplit() {
+    // For serialization
+  }
+
+  public SnowflakeResultChunkSplit(SnowflakeResultSetSerializable resultChunk) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(resultChunk);
+      this.length = resultChunk.getUncompressedDataSizeInBytes();
+    } catch (SQLException e) {
+      throw new IOException(e);
+    }
+    this.resultChunk = bytes.toByteArray();
+  }
+
+  @Override
+  public void write(DataOutput out) throws IOException {
+    out.writeLong(length);
+    out.writeInt(resultChunk.length);
+    out.write(resultChunk);
+  }
+
+  @Override
+  public void readFields(DataInput in) throws IOException {
+    length = in.readLong();
+    resultChunk = new byte[in.readInt()];
+    in.readFully(resultChunk);
+  }
+
+  /**
+   * @return uncompressed size of the chunk.
+   */
+  @Override
+  public long getLength() {
+    return length;
+  }
+
+  @Override
+  public String[] getLocations() {
+    return new String[0];
+  }
+
+  public SnowflakeResultSetSerializable getResultChunk() throws IOException {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(resultChunk))) {
+      return (SnowflakeResultSetSerializable) in.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IOException(e);
+    }
+  }
+}
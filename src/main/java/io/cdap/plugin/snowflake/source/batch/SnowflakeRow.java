@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Row read from Snowflake. A single instance is created per split and reused for every record, column names and
+ * their indexes are resolved once, while values are read by index from the current record.
+ *
+ * Rows read from typed files, such as Parquet, carry records already decoded into the output schema instead of
+ * text values.
+ */
+public class SnowflakeRow {
+
+  private final String[] columnNames;
+  private final Map<String, Integer> columnIndexes;
+  private final IntFunction<String> values;
+  private final Supplier<StructuredRecord> record;
+
+  /**
+   * @param columnNames names of the columns in the order they are read.
+   * @param values function returning value of the column with the given index in the current record.
+   */
+  public SnowflakeRow(String[] columnNames, IntFunction<String> values) {
+    this(columnNames, values, null);
+  }
+
+  /**
+   * @param record function returning the current record, decoded into the output schema.
+   */
+  public SnowflakeRow(Supplier<StructuredRecord> record) {
+    this(new String[0], index -> null, record);
+  }
+
+  private SnowflakeRow(String[] columnNames, IntFunction<String> values,
+                       @Nullable Supplier<StructuredRecord> record) {
+    this.columnNames = columnNames;
+    this.values = values;
+    this.record = record;
+    this.columnIndexes = new HashMap<>();
+    for (int i = 0; i < columnNames.length; i++) {
+      columnIndexes.put(columnNames[i], i);
+    }
+  }
+
+  public String[] getColumnNames() {
+    return columnNames;
+  }
+
+  /**
+   * @param columnName name of the column.
+   * @return index of the column, or -1 if the row does not contain such column.
+   */
+  public int getColumnIndex(String columnName) {
+    Integer index = columnIndexes.get(columnName);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * @param index column index.
+   * @return value of the column in the current record, or null if the value is NULL.
+   */
+  @Nullable
+  public String get(int index) {
+    return values.apply(index);
+  }
+
+  /**
+   * @return current record decoded into the output schema, or null if the row carries text values.
+   */
+  @Nullable
+  public StructuredRecord getRecord() {
+    return record == null ? null : record.get();
+  }
+}
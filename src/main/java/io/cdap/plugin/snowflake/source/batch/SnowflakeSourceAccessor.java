@@ -16,20 +16,26 @@
 
 package io.cdap.plugin.snowflake.source.batch;
 
-import au.com.bytecode.opencsv.CSVReader;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import io.cdap.plugin.snowflake.common.client.SnowflakeAccessor;
+import io.cdap.plugin.snowflake.common.util.PrefetchInputStream;
 import io.cdap.plugin.snowflake.common.util.QueryUtil;
+import io.cdap.plugin.snowflake.common.util.ResumableInputStream;
 import io.cdap.plugin.snowflake.sink.batch.SnowflakeSinkAccessor;
 import net.snowflake.client.jdbc.SnowflakeConnection;
+import net.snowflake.client.jdbc.SnowflakeResultSet;
+import net.snowflake.client.jdbc.SnowflakeResultSetSerializable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -39,26 +45,50 @@ import java.util.UUID;
  */
 public class SnowflakeSourceAccessor extends SnowflakeAccessor {
   private static final Logger LOG = LoggerFactory.getLogger(SnowflakeSinkAccessor.class);
-  // Directory should be unique, so that parallel pipelines can run correctly, as well as after failure we don't
-  // have old stage files in the dir.
-  private static final String STAGE_PATH = "@~/cdap_stage/result" + UUID.randomUUID() + "/";
+  private static final String STAGE_PATH_PREFIX = "@~/cdap_stage/result";
+  private static final String DATE_FORMAT = "'YYYY-MM-DD'";
+  private static final String TIME_FORMAT = "'HH24:MI:SS.FF6'";
+  private static final String TIMESTAMP_FORMAT = "'YYYY-MM-DD\"T\"HH24:MI:SS.FF6TZH:TZM'";
   private static final String COMAND_COPY_INTO =
-    "COPY INTO " + STAGE_PATH + "data_ " +
+    "COPY INTO %sdata_ " +
       "FROM (%s) " +
       "FILE_FORMAT=(" +
       "TYPE='CSV' " +
-      "COMPRESSION=GZIP " +
+      "COMPRESSION=%s " +
       "FIELD_DELIMITER=',' " +
       "ESCAPE=NONE " +
       "ESCAPE_UNENCLOSED_FIELD=NONE " +
-      "DATE_FORMAT='YYYY-MM-DD' " +
-      "TIME_FORMAT='HH24:MI:SS' " +
-      "TIMESTAMP_FORMAT='YYYY-MM-DD\"T\"HH24:MI:SSTZH:TZM' " +
+      "DATE_FORMAT=" + DATE_FORMAT + " " +
+      "TIME_FORMAT=" + TIME_FORMAT + " " +
+      "TIMESTAMP_FORMAT=" + TIMESTAMP_FORMAT + " " +
       "FIELD_OPTIONALLY_ENCLOSED_BY='\"' " +
       "NULL_IF='' " +
       "EMPTY_FIELD_AS_NULL=FALSE) " +
       "OVERWRITE=TRUE HEADER=TRUE SINGLE=FALSE";
+  // values keep their types, so no output formats are needed
+  private static final String COMMAND_COPY_INTO_PARQUET =
+    "COPY INTO %sdata_ " +
+      "FROM (%s) " +
+      "FILE_FORMAT=(" +
+      "TYPE='PARQUET' " +
+      "COMPRESSION=SNAPPY) " +
+      "OVERWRITE=TRUE HEADER=TRUE SINGLE=FALSE";
+  private static final int PREFETCH_BLOCKS = 4;
+  private static final int MIN_PREFETCH_BLOCK_SIZE = 64 * 1024;
   private static final String COMMAND_MAX_FILE_SIZE = " MAX_FILE_SIZE=%s";
+  // values are formatted the same way as in the stage files
+  private static final String COMMAND_SET_OUTPUT_FORMATS =
+    "ALTER SESSION SET " +
+      "DATE_OUTPUT_FORMAT=" + DATE_FORMAT + " " +
+      "TIME_OUTPUT_FORMAT=" + TIME_FORMAT + " " +
+      "TIMESTAMP_OUTPUT_FORMAT=" + TIMESTAMP_FORMAT + " " +
+      "TIMESTAMP_LTZ_OUTPUT_FORMAT=" + TIMESTAMP_FORMAT + " " +
+      "TIMESTAMP_NTZ_OUTPUT_FORMAT=" + TIMESTAMP_FORMAT + " " +
+      "TIMESTAMP_TZ_OUTPUT_FORMAT=" + TIMESTAMP_FORMAT + " " +
+      "BINARY_OUTPUT_FORMAT='HEX'";
+  private static final long DEFAULT_RESULT_SPLIT_SIZE = 128 * 1024 * 1024;
+  private static final String COMMAND_EXPLAIN = "EXPLAIN USING JSON ";
+  private static final JsonParser JSON_PARSER = new JsonParser();
   private final SnowflakeBatchSourceConfig config;
 
   public SnowflakeSourceAccessor(SnowflakeBatchSourceConfig config) {
@@ -67,26 +97,40 @@ public class SnowflakeSourceAccessor extends SnowflakeAccessor {
   }
 
   /**
-   * Copies query data into staged files and returns their paths.
+   * Creates path in the user stage, where the result of a single pipeline run is staged. Directory is unique, so
+   * that parallel pipelines can run correctly, as well as after failure we don't have old stage files in the dir.
+   *
+   * @return path to a new directory in Snowflake stage.
+   */
+  public static String createStagePath() {
+    return STAGE_PATH_PREFIX + UUID.randomUUID() + "/";
+  }
+
+  /**
+   * Copies query data into staged files and returns their paths and sizes.
    *
-   * @return List of file paths in Snowflake stage.
+   * @param stagePath directory in Snowflake stage, see {@link #createStagePath()}.
+   * @param maxFileSize maximum size of a stage file in bytes, or 0 to use the default of Snowflake.
+   * @return List of files in Snowflake stage.
    * @throws IOException thrown if there are any issue with the I/O operations.
    */
-  public List<String> prepareStageSplits() throws IOException {
-    LOG.info("Loading data into stage: '{}'", STAGE_PATH);
-    String copy = String.format(COMAND_COPY_INTO, QueryUtil.removeSemicolon(config.getImportQuery()));
-    if (config.getMaxSplitSize() > 0) {
-      copy = copy + String.format(COMMAND_MAX_FILE_SIZE, config.getMaxSplitSize());
+  public List<StageFile> prepareStageSplits(String stagePath, long maxFileSize) throws IOException {
+    LOG.info("Loading data into stage: '{}'", stagePath);
+    String query = QueryUtil.removeSemicolon(config.getImportQuery());
+    String copy = config.getStageFormat() == StageFormat.PARQUET
+      ? String.format(COMMAND_COPY_INTO_PARQUET, stagePath, query)
+      : String.format(COMAND_COPY_INTO, stagePath, query, config.getStageCompression().getValue());
+    if (maxFileSize > 0) {
+      copy = copy + String.format(COMMAND_MAX_FILE_SIZE, maxFileSize);
     }
-    List<String> stageSplits = new ArrayList<>();
-    try (Connection connection = dataSource.getConnection();
+    List<StageFile> stageSplits = new ArrayList<>();
+    try (Connection connection = getConnection();
          PreparedStatement copyStmt = connection.prepareStatement(copy);
-         PreparedStatement listStmt = connection.prepareStatement("list " + STAGE_PATH)) {
+         PreparedStatement listStmt = connection.prepareStatement("list " + stagePath)) {
       copyStmt.execute();
       try (ResultSet resultSet = listStmt.executeQuery()) {
         while (resultSet.next()) {
-          String name = resultSet.getString("name");
-          stageSplits.add(name);
+          stageSplits.add(new StageFile(resultSet.getString("name"), resultSet.getLong("size")));
         }
       }
     } catch (SQLException e) {
@@ -96,29 +140,144 @@ public class SnowflakeSourceAccessor extends SnowflakeAccessor {
   }
 
   /**
-   * Remove a file from stage.
-   * @param stageSplit  path to file in Snowflake stage.
-   * @throws IOException hrown if there are any issue with the I/O operations.
+   * Runs the import query and splits its result into chunks, which can be read without connecting to Snowflake.
+   * The query runs in a new session, since output formats of the session are changed.
+   *
+   * @return chunks of the query result, each of them up to the maximum split size.
+   * @throws IOException thrown if the query fails.
    */
-  public void removeStageFile(String stageSplit) throws IOException {
-    runSQL(String.format("remove @~/%s", stageSplit));
+  public List<SnowflakeResultSetSerializable> prepareResultChunks() throws IOException {
+    return prepareResultChunks(QueryUtil.removeSemicolon(config.getImportQuery()),
+                               config.getMaxSplitSize() > 0 ? config.getMaxSplitSize() : DEFAULT_RESULT_SPLIT_SIZE);
   }
 
   /**
-   * Build CSVReader for specified stage split file.
+   * Runs the import query limited to the given number of rows and returns its result as a single chunk.
+   * Used in preview, where only a few records are shown.
    *
-   * @param stageSplit path to file in Snowflake stage.
-   * @return CSVReader.
-   * @throws IOException thrown if there are any issue with the I/O operations.
+   * @param limit maximum number of rows.
+   * @return chunks of the limited query result.
+   * @throws IOException thrown if the query fails.
    */
-  public CSVReader buildCsvReader(String stageSplit) throws IOException {
-    try (Connection connection = dataSource.getConnection()) {
-      InputStream downloadStream = connection.unwrap(SnowflakeConnection.class)
-        .downloadStream("@~", stageSplit, true);
-      InputStreamReader inputStreamReader = new InputStreamReader(downloadStream);
-      return new CSVReader(inputStreamReader);
+  public List<SnowflakeResultSetSerializable> preparePreviewResultChunks(int limit) throws IOException {
+    return prepareResultChunks(QueryUtil.limitQueryResult(config.getImportQuery(), limit), Long.MAX_VALUE);
+  }
+
+  private List<SnowflakeResultSetSerializable> prepareResultChunks(String query, long maxSplitSize)
+    throws IOException {
+    try (Connection connection = openConnection()) {
+      try (Statement statement = connection.createStatement()) {
+        statement.execute(COMMAND_SET_OUTPUT_FORMATS);
+      }
+      try (PreparedStatement queryStmt = connection.prepareStatement(query);
+           ResultSet resultSet = queryStmt.executeQuery()) {
+        List<SnowflakeResultSetSerializable> resultChunks = resultSet.unwrap(SnowflakeResultSet.class)
+          .getResultSetSerializables(maxSplitSize);
+        LOG.info("Import query result is split into {} chunks.", resultChunks.size());
+        return resultChunks;
+      }
     } catch (SQLException e) {
       throw new IOException(e);
     }
   }
+
+  /**
+   * Estimates size of the import query from its plan, without executing it. This is the number of bytes of the
+   * tables the query scans, not the size of its result, which may be much larger, for example for joins.
+   *
+   * @return number of bytes the query is going to scan, or -1 if it cannot be estimated.
+   */
+  public long estimateScannedBytes() {
+    String explain = COMMAND_EXPLAIN + QueryUtil.removeSemicolon(config.getImportQuery());
+    try (Connection connection = getConnection();
+         PreparedStatement explainStmt = connection.prepareStatement(explain);
+         ResultSet resultSet = explainStmt.executeQuery()) {
+      if (!resultSet.next()) {
+        return -1;
+      }
+      JsonElement bytesAssigned = JSON_PARSER.parse(resultSet.getString(1)).getAsJsonObject()
+        .getAsJsonObject("GlobalStats").get("bytesAssigned");
+      // queries which scan no table data, such as GENERATOR, FLATTEN or INFORMATION_SCHEMA, may still have
+      // a large result, so their size is unknown
+      long scannedBytes = bytesAssigned == null ? -1 : bytesAssigned.getAsLong();
+      return scannedBytes > 0 ? scannedBytes : -1;
+    } catch (SQLException | RuntimeException e) {
+      LOG.debug("Cannot estimate size of the import query.", e);
+      return -1;
+    }
+  }
+
+  /**
+   * Remove all files of a pipeline run from stage in a single statement.
+   * @param stagePath  directory in Snowflake stage, see {@link #createStagePath()}.
+   * @throws IOException thrown if there are any issue with the I/O operations.
+   */
+  public void removeStage(String stagePath) throws IOException {
+    runSQL(String.format("remove %s", stagePath));
+  }
+
+  /**
+   * Build CSV tokenizer for specified stage split file.
+   *
+   * @param stageFile stream of the file, as stored in the stage, see {@link #openStageFile(String)}.
+   * @param stageSplit path to file in Snowflake stage.
+   * @return CSVTokenizer.
+   * @throws IOException thrown if there are any issue with the I/O operations.
+   */
+  public CSVTokenizer buildCsvTokenizer(InputStream stageFile, String stageSplit) throws IOException {
+    InputStream stream = config.getStageCompression().decompress(stageFile);
+    long prefetchMemory = config.getPrefetchMemory();
+    if (prefetchMemory > 0) {
+      // stage file is downloaded and decompressed on a background thread, while the records are parsed
+      int blockSize = (int) Math.min(Math.max(prefetchMemory / PREFETCH_BLOCKS, MIN_PREFETCH_BLOCK_SIZE),
+                                     Integer.MAX_VALUE);
+      stream = new PrefetchInputStream(stream, PREFETCH_BLOCKS, blockSize, stageSplit);
+    }
+    return new CSVTokenizer(stream);
+  }
+
+  /**
+   * Downloads specified stage split file as is, without decompressing it, into a local spool file, so that it can be
+   * read with seeks without holding it in memory. The file is copied from the stream of
+   * {@link #openStageFile(String)}.
+   *
+   * @param stageSplit path to file in Snowflake stage.
+   * @return downloaded file, which is removed once closed.
+   * @throws IOException thrown if there are any issue with the I/O operations.
+   */
+  public SpoolFile downloadStageFile(String stageSplit) throws IOException {
+    try (InputStream downloadStream = openStageFile(stageSplit)) {
+      return spool(SpoolFile.create(stageSplit), downloadStream);
+    }
+  }
+
+  /**
+   * Opens stage split file without decompressing it. If the download fails, the file is reopened and the download
+   * continues from the last byte read, with up to the configured number of retries.
+   *
+   * @param stageSplit path to file in Snowflake stage.
+   * @return stream of the file, which also tells the number of bytes downloaded.
+   */
+  public ResumableInputStream openStageFile(String stageSplit) {
+    return new ResumableInputStream(() -> {
+      try (Connection connection = getConnection()) {
+        return connection.unwrap(SnowflakeConnection.class).downloadStream("@~", stageSplit, false);
+      } catch (SQLException e) {
+        throw new IOException(e);
+      }
+    }, config.getDownloadRetries(), stageSplit);
+  }
+
+  /**
+   * Copies stream into the given spool file, which is removed if the copy fails. Package-private for tests.
+   */
+  static SpoolFile spool(SpoolFile spoolFile, InputStream stream) throws IOException {
+    try {
+      Files.copy(stream, spoolFile.getPath());
+      return spoolFile;
+    } catch (IOException e) {
+      spoolFile.close();
+      throw e;
+    }
+  }
 }
@@ -22,35 +22,53 @@ import org.apache.hadoop.mapreduce.InputSplit;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
- * A split used for mapreduce.
+ * A split used for mapreduce. It holds one or more stage files, which are read back to back by one record reader.
  */
 public class SnowflakeSplit extends InputSplit implements Writable {
 
-  private String stageSplit;
+  private List<StageFile> stageFiles;
 
   public SnowflakeSplit() {
     // For serialization
   }
 
-  public SnowflakeSplit(String stageSplit) {
-    this.stageSplit = stageSplit;
+  public SnowflakeSplit(List<StageFile> stageFiles) {
+    this.stageFiles = new ArrayList<>(stageFiles);
+  }
+
+  public SnowflakeSplit(StageFile stageFile) {
+    this(Collections.singletonList(stageFile));
   }
 
   @Override
   public void write(DataOutput out) throws IOException {
-    out.writeUTF(stageSplit);
+    out.writeInt(stageFiles.size());
+    for (StageFile stageFile : stageFiles) {
+      out.writeUTF(stageFile.getName());
+      out.writeLong(stageFile.getSize());
+    }
   }
 
   @Override
   public void readFields(DataInput in) throws IOException {
-    stageSplit = in.readUTF();
+    int count = in.readInt();
+    stageFiles = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      stageFiles.add(new StageFile(in.readUTF(), in.readLong()));
+    }
   }
 
+  /**
+   * @return total size of the stage files of the split.
+   */
   @Override
   public long getLength() {
-    return 0;
+    return stageFiles.stream().mapToLong(StageFile::getSize).sum();
   }
 
   @Override
@@ -58,7 +76,7 @@ public class SnowflakeSplit extends InputSplit implements Writable {
     return new String[0];
   }
 
-  public String getStageSplit() {
-    return stageSplit;
+  public List<StageFile> getStageFiles() {
+    return stageFiles;
   }
 }
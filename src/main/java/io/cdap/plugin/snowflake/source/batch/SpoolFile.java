@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Stage file downloaded into a local spool directory of its own. The directory is removed once the file is closed.
+ */
+public class SpoolFile implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(SpoolFile.class);
+  private static final String DIRECTORY_PREFIX = "snowflake-stage-";
+
+  private final Path directory;
+  private final Path path;
+
+  private SpoolFile(Path directory, Path path) {
+    this.directory = directory;
+    this.path = path;
+  }
+
+  /**
+   * Creates an empty spool directory for the given stage file.
+   *
+   * @param stageSplit path to file in Snowflake stage.
+   * @return spool file, which is not created yet.
+   * @throws IOException if the directory cannot be created.
+   */
+  public static SpoolFile create(String stageSplit) throws IOException {
+    Path directory = Files.createTempDirectory(DIRECTORY_PREFIX);
+    return new SpoolFile(directory, directory.resolve(Paths.get(stageSplit).getFileName().toString()));
+  }
+
+  /**
+   * @return local path of the file, named the same as in the stage.
+   */
+  public Path getPath() {
+    return path;
+  }
+
+  /**
+   * @return size of the file in bytes.
+   * @throws IOException if the file does not exist.
+   */
+  public long getLength() throws IOException {
+    return Files.size(path);
+  }
+
+  /**
+   * Removes the file and its spool directory. Failures are logged, as the file has already been read.
+   */
+  @Override
+  public void close() {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        Files.deleteIfExists(file);
+      }
+      Files.deleteIfExists(directory);
+    } catch (IOException e) {
+      LOG.warn("Failed to remove spool directory '{}'.", directory, e);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import com.github.luben.zstd.ZstdInputStream;
+import org.brotli.dec.BrotliInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression of CSV stage files. Values are the names of the codecs in the COPY INTO file format.
+ */
+public enum StageCompression {
+  GZIP("GZIP"),
+  ZSTD("ZSTD"),
+  BROTLI("BROTLI"),
+  /**
+   * Deflate with zlib header.
+   */
+  DEFLATE("DEFLATE"),
+  /**
+   * Deflate without header.
+   */
+  RAW_DEFLATE("RAW_DEFLATE"),
+  NONE("NONE");
+
+  // compressed bytes read from the download stream at once, the default of the JDK streams is 512 bytes
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final String value;
+
+  StageCompression(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  /**
+   * @param inputStream compressed stage file.
+   * @return stream of the decompressed stage file, closing it closes the given stream.
+   * @throws IOException if the stream header cannot be read.
+   */
+  public InputStream decompress(InputStream inputStream) throws IOException {
+    switch (this) {
+      case GZIP:
+        return new GZIPInputStream(inputStream, BUFFER_SIZE);
+      case ZSTD:
+        return new ZstdInputStream(inputStream);
+      case BROTLI:
+        return new BrotliInputStream(inputStream);
+      case DEFLATE:
+        return inflate(inputStream, new Inflater());
+      case RAW_DEFLATE:
+        return inflate(inputStream, new Inflater(true));
+      default:
+        return inputStream;
+    }
+  }
+
+  private static InputStream inflate(InputStream inputStream, Inflater inflater) {
+    return new InflaterInputStream(inputStream, inflater, BUFFER_SIZE) {
+      @Override
+      public void close() throws IOException {
+        // inflaters passed to the stream are not released by it
+        try {
+          super.close();
+        } finally {
+          inflater.end();
+        }
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return this.getValue();
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+/**
+ * File in Snowflake stage, with its size as listed in the stage.
+ */
+public class StageFile {
+
+  private final String name;
+  private final long size;
+
+  public StageFile(String name, long size) {
+    this.name = name;
+    this.size = size;
+  }
+
+  /**
+   * @return path to the file in Snowflake stage.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return size of the file in bytes, as stored in the stage.
+   */
+  public long getSize() {
+    return size;
+  }
+}
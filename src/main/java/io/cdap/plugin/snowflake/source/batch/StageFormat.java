@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.source.batch;
+
+/**
+ * Format of the files the result of the import query is copied into in {@link ReadMode#STAGE} read mode.
+ */
+public enum StageFormat {
+  /**
+   * CSV files compressed with the {@link StageCompression}, values are parsed from their text representation.
+   */
+  CSV("CSV"),
+  /**
+   * Snappy compressed Parquet files, values are decoded from their typed columns.
+   */
+  PARQUET("Parquet");
+
+  private final String value;
+
+  StageFormat(String value) {
+    this.value = value;
+  }
+
+  public String getValue() {
+    return value;
+  }
+
+  @Override
+  public String toString() {
+    return this.getValue();
+  }
+}
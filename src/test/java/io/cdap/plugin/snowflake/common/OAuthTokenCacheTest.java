@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common;
+
+import io.cdap.plugin.snowflake.source.batch.SnowflakeBatchSourceConfigBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for {@link OAuthTokenCache}
+ */
+public class OAuthTokenCacheTest {
+
+  @Test
+  public void testTokenCachedUntilRefresh() {
+    AtomicLong clock = new AtomicLong();
+    AtomicInteger requests = new AtomicInteger();
+    OAuthTokenCache cache = new OAuthTokenCache(
+      config -> new OAuthUtil.AccessToken("token" + requests.incrementAndGet(), 600), clock::get);
+    BaseSnowflakeConfig config = new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+      .build();
+
+    Assert.assertEquals("token1", cache.get(config));
+    clock.set(538_000);
+    Assert.assertEquals("token1", cache.get(config));
+    // one minute ahead of expiry
+    clock.set(540_000);
+    Assert.assertEquals("token2", cache.get(config));
+    Assert.assertEquals("token2", cache.get(config));
+    Assert.assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testTokensKeyedByRefreshToken() {
+    AtomicInteger requests = new AtomicInteger();
+    OAuthTokenCache cache = new OAuthTokenCache(
+      config -> new OAuthUtil.AccessToken(config.getRefreshToken() + requests.incrementAndGet(), 600), () -> 0);
+    BaseSnowflakeConfig first = new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+      .setRefreshToken("first")
+      .build();
+    BaseSnowflakeConfig second = new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+      .setRefreshToken("second")
+      .build();
+
+    Assert.assertEquals("first1", cache.get(first));
+    Assert.assertEquals("second2", cache.get(second));
+    Assert.assertEquals("first1", cache.get(first));
+  }
+
+  @Test
+  public void testShortLivedTokenRefreshedHalfway() {
+    AtomicLong clock = new AtomicLong();
+    AtomicInteger requests = new AtomicInteger();
+    OAuthTokenCache cache = new OAuthTokenCache(
+      config -> new OAuthUtil.AccessToken("token" + requests.incrementAndGet(), 60), clock::get);
+    BaseSnowflakeConfig config = new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+      .build();
+
+    Assert.assertEquals("token1", cache.get(config));
+    clock.set(29_000);
+    Assert.assertEquals("token1", cache.get(config));
+    clock.set(30_000);
+    Assert.assertEquals("token2", cache.get(config));
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.UUID;
+import javax.sql.DataSource;
+
+/**
+ * Tests for {@link SnowflakeConnectionPool}
+ */
+public class SnowflakeConnectionPoolTest {
+
+  @Test
+  public void testConnectionReused() throws SQLException {
+    Connection physical = mockConnection();
+    DataSource dataSource = Mockito.mock(DataSource.class);
+    Mockito.when(dataSource.getConnection()).thenReturn(physical);
+    SnowflakeConnectionPool pool = SnowflakeConnectionPool.getPool(UUID.randomUUID().toString(), () -> dataSource);
+
+    Connection first = pool.getConnection();
+    first.close();
+    Assert.assertTrue(first.isClosed());
+    try (Connection second = pool.getConnection()) {
+      Assert.assertFalse(second.isClosed());
+      second.prepareStatement("select 1");
+    }
+
+    Mockito.verify(dataSource, Mockito.times(1)).getConnection();
+    Mockito.verify(physical).prepareStatement("select 1");
+    Mockito.verify(physical, Mockito.never()).close();
+  }
+
+  @Test
+  public void testInvalidConnectionReplaced() throws SQLException {
+    Connection invalid = mockConnection();
+    Connection valid = mockConnection();
+    DataSource dataSource = Mockito.mock(DataSource.class);
+    Mockito.when(dataSource.getConnection()).thenReturn(invalid, valid);
+    SnowflakeConnectionPool pool = SnowflakeConnectionPool.getPool(UUID.randomUUID().toString(), () -> dataSource);
+
+    pool.getConnection().close();
+    Mockito.when(invalid.isValid(Mockito.anyInt())).thenReturn(false);
+    try (Connection connection = pool.getConnection()) {
+      connection.commit();
+    }
+
+    Mockito.verify(invalid).close();
+    Mockito.verify(valid).commit();
+  }
+
+  @Test(expected = SQLException.class)
+  public void testClosedConnectionNotUsable() throws SQLException {
+    Connection physical = mockConnection();
+    DataSource dataSource = Mockito.mock(DataSource.class);
+    Mockito.when(dataSource.getConnection()).thenReturn(physical);
+    SnowflakeConnectionPool pool = SnowflakeConnectionPool.getPool(UUID.randomUUID().toString(), () -> dataSource);
+
+    Connection connection = pool.getConnection();
+    connection.close();
+    connection.commit();
+  }
+
+  @Test
+  public void testOpenConnectionNotPooled() throws SQLException {
+    Connection physical = mockConnection();
+    DataSource dataSource = Mockito.mock(DataSource.class);
+    Mockito.when(dataSource.getConnection()).thenReturn(physical);
+    SnowflakeConnectionPool pool = SnowflakeConnectionPool.getPool(UUID.randomUUID().toString(), () -> dataSource);
+
+    pool.openConnection().close();
+
+    Mockito.verify(physical).close();
+  }
+
+  private static Connection mockConnection() throws SQLException {
+    Connection connection = Mockito.mock(Connection.class);
+    Mockito.when(connection.isValid(Mockito.anyInt())).thenReturn(true);
+    return connection;
+  }
+}
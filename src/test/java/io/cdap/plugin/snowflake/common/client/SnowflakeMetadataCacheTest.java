@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common.client;
+
+import io.cdap.plugin.snowflake.common.BaseSnowflakeConfig;
+import io.cdap.plugin.snowflake.source.batch.SnowflakeBatchSourceConfigBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.Types;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for {@link SnowflakeMetadataCache}
+ */
+public class SnowflakeMetadataCacheTest {
+  private static final long TTL_MILLIS = 60_000;
+  private static final List<SnowflakeFieldDescriptor> FIELD_DESCRIPTORS =
+    Collections.singletonList(new SnowflakeFieldDescriptor("ID", Types.DECIMAL, false, 38, 2));
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final AtomicLong clock = new AtomicLong(1_000_000);
+  private SnowflakeMetadataCache cache;
+
+  @Before
+  public void setUp() {
+    cache = new SnowflakeMetadataCache(temporaryFolder.getRoot().toPath().resolve("cache"), TTL_MILLIS, 2,
+                                       clock::get);
+  }
+
+  @Test
+  public void testGetCached() {
+    Assert.assertNull(cache.get("key"));
+
+    cache.put("key", FIELD_DESCRIPTORS);
+
+    Assert.assertEquals(FIELD_DESCRIPTORS, cache.get("key"));
+  }
+
+  @Test
+  public void testEntryExpires() {
+    cache.put("key", FIELD_DESCRIPTORS);
+
+    clock.addAndGet(TTL_MILLIS - 1);
+    Assert.assertEquals(FIELD_DESCRIPTORS, cache.get("key"));
+    clock.addAndGet(1);
+    Assert.assertNull(cache.get("key"));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEvicted() {
+    cache.put("first", FIELD_DESCRIPTORS);
+    clock.addAndGet(1000);
+    cache.put("second", FIELD_DESCRIPTORS);
+    clock.addAndGet(1000);
+    Assert.assertNotNull(cache.get("first"));
+    clock.addAndGet(1000);
+    cache.put("third", FIELD_DESCRIPTORS);
+
+    Assert.assertNotNull(cache.get("first"));
+    Assert.assertNull(cache.get("second"));
+    Assert.assertNotNull(cache.get("third"));
+  }
+
+  @Test
+  public void testInvalidate() {
+    cache.put("first", FIELD_DESCRIPTORS);
+    cache.put("second", FIELD_DESCRIPTORS);
+
+    cache.invalidate("first");
+    Assert.assertNull(cache.get("first"));
+    Assert.assertNotNull(cache.get("second"));
+
+    cache.invalidateAll();
+    Assert.assertNull(cache.get("second"));
+  }
+
+  @Test
+  public void testDirectoryIsPrivate() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath().resolve("cache");
+    cache.put("key", FIELD_DESCRIPTORS);
+
+    Assert.assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(directory));
+  }
+
+  @Test
+  public void testDirectoryNotPrivateIgnored() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath().resolve("cache");
+    cache.put("key", FIELD_DESCRIPTORS);
+    Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwxrwxrwx"));
+
+    Assert.assertNull(cache.get("key"));
+    cache.put("other", FIELD_DESCRIPTORS);
+    Assert.assertFalse(Files.exists(directory.resolve("other.json")));
+  }
+
+  @Test
+  public void testGetKey() {
+    BaseSnowflakeConfig config = new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+      .build();
+    BaseSnowflakeConfig otherDatabase = new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+      .setDatabase("other")
+      .build();
+    BaseSnowflakeConfig otherUser = new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+      .setUsername("other")
+      .build();
+
+    Assert.assertEquals(SnowflakeMetadataCache.getKey(config, "select 1"),
+                        SnowflakeMetadataCache.getKey(config, "select 1"));
+    Assert.assertNotEquals(SnowflakeMetadataCache.getKey(config, "select 1"),
+                           SnowflakeMetadataCache.getKey(config, "select 2"));
+    Assert.assertNotEquals(SnowflakeMetadataCache.getKey(config, "select 1"),
+                           SnowflakeMetadataCache.getKey(otherDatabase, "select 1"));
+    Assert.assertNotEquals(SnowflakeMetadataCache.getKey(config, "select 1"),
+                           SnowflakeMetadataCache.getKey(otherUser, "select 1"));
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+/**
+ * Tests for {@link DateTimeParser}
+ */
+public class DateTimeParserTest {
+
+  @Test
+  public void testParseDate() {
+    Assert.assertEquals(17897, DateTimeParser.parseDate("2019-01-01"));
+    Assert.assertEquals(0, DateTimeParser.parseDate("1970-01-01"));
+    Assert.assertEquals(-1, DateTimeParser.parseDate("1969-12-31"));
+    Assert.assertEquals(LocalDate.of(2020, 2, 29).toEpochDay(), DateTimeParser.parseDate("2020-02-29"));
+    Assert.assertEquals(LocalDate.of(0, 1, 1).toEpochDay(), DateTimeParser.parseDate("0000-01-01"));
+    Assert.assertEquals(LocalDate.of(9999, 12, 31).toEpochDay(), DateTimeParser.parseDate("9999-12-31"));
+  }
+
+  @Test
+  public void testParseDateMatchesJavaTime() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      LocalDate date = LocalDate.ofEpochDay(random.nextInt(4_000_000) - 1_000_000);
+      Assert.assertEquals(date.toEpochDay(), DateTimeParser.parseDate(date.toString()));
+    }
+  }
+
+  @Test(expected = DateTimeParseException.class)
+  public void testParseDateInvalid() {
+    DateTimeParser.parseDate("2019-02-29");
+  }
+
+  @Test
+  public void testParseTimeMicros() {
+    Assert.assertEquals(3661000000L, DateTimeParser.parseTimeMicros("01:01:01"));
+    Assert.assertEquals(3661123456L, DateTimeParser.parseTimeMicros("01:01:01.123456"));
+    Assert.assertEquals(3661500000L, DateTimeParser.parseTimeMicros("01:01:01.5"));
+    Assert.assertEquals(3661123456L, DateTimeParser.parseTimeMicros("01:01:01.123456789"));
+    Assert.assertEquals(86399999999L, DateTimeParser.parseTimeMicros("23:59:59.999999"));
+    // falls back to java.time
+    Assert.assertEquals(3660000000L, DateTimeParser.parseTimeMicros("01:01"));
+  }
+
+  @Test(expected = DateTimeParseException.class)
+  public void testParseTimeInvalid() {
+    DateTimeParser.parseTimeMicros("25:00:00");
+  }
+
+  @Test
+  public void testParseTimestampMicros() {
+    Assert.assertEquals(1546304461000000L, DateTimeParser.parseTimestampMicros("2019-01-01T01:01:01+00:00"));
+    Assert.assertEquals(1546304461123456L, DateTimeParser.parseTimestampMicros("2019-01-01T01:01:01.123456+00:00"));
+    Assert.assertEquals(1546304461123456L, DateTimeParser.parseTimestampMicros("2019-01-01T01:01:01.123456Z"));
+    Assert.assertEquals(1546304461123456L, DateTimeParser.parseTimestampMicros("2019-01-01T03:31:01.123456+02:30"));
+    Assert.assertEquals(1546304461123456L, DateTimeParser.parseTimestampMicros("2018-12-31T23:01:01.123456-02:00"));
+    Assert.assertEquals(-500000L, DateTimeParser.parseTimestampMicros("1969-12-31T23:59:59.5+00:00"));
+  }
+
+  @Test
+  public void testParseTimestampMatchesJavaTime() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      // about 200 years around the epoch
+      long micros = random.nextLong() % 6_300_000_000_000_000L;
+      int offsetMinutes = (random.nextInt(28) - 14) * 60 + (random.nextBoolean() ? 30 : 0);
+      String value = OffsetDateTime.ofInstant(
+        Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000L),
+        ZoneOffset.ofTotalSeconds(offsetMinutes * 60)).toString();
+      Assert.assertEquals(value, micros, DateTimeParser.parseTimestampMicros(value));
+    }
+  }
+
+  @Test(expected = DateTimeParseException.class)
+  public void testParseTimestampInvalid() {
+    DateTimeParser.parseTimestampMicros("2019-01-01 01:01:01");
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * Tests for {@link DecimalParser}
+ */
+public class DecimalParserTest {
+
+  @Test
+  public void testParseUnscaledBytes() {
+    assertParsed("0", 0);
+    assertParsed("-0", 2);
+    assertParsed("101", 0);
+    assertParsed("127", 0);
+    assertParsed("128", 0);
+    assertParsed("-128", 0);
+    assertParsed("-129", 0);
+    assertParsed("12345.67", 2);
+    assertParsed("-12345.6", 2);
+    assertParsed(".5", 3);
+    assertParsed("1.", 0);
+    assertParsed("+42.42", 9);
+    assertParsed("000000000000000000000001.5", 2);
+    assertParsed("999999999999999999", 0);
+    assertParsed("-999999999999999999", 0);
+  }
+
+  @Test
+  public void testParseUnscaledBytesFallback() {
+    // more than 18 digits
+    assertParsed("1234567890123456789", 0);
+    assertParsed("12345678901234567.89", 2);
+    // scale pushes unscaled value over 18 digits
+    assertParsed("123456789012", 9);
+    // exponent
+    assertParsed("1.5E3", 2);
+    // trailing zeros beyond scale
+    assertParsed("1.500", 2);
+  }
+
+  @Test(expected = ArithmeticException.class)
+  public void testParseUnscaledBytesRoundingRequired() {
+    DecimalParser.parseUnscaledBytes("1.555", 2);
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testParseUnscaledBytesInvalid() {
+    DecimalParser.parseUnscaledBytes("1.2.3", 2);
+  }
+
+  @Test
+  public void testParseUnscaledBytesMatchesBigDecimal() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      int scale = random.nextInt(10);
+      BigDecimal value = new BigDecimal(new BigInteger(random.nextInt(80) + 1, random), random.nextInt(scale + 1));
+      assertParsed((random.nextBoolean() ? value : value.negate()).toPlainString(), scale);
+    }
+  }
+
+  @Test
+  public void testToByteArray() {
+    long[] values = {0, 1, -1, 127, 128, -128, -129, 255, 256, 32767, 32768, Long.MAX_VALUE, Long.MIN_VALUE};
+    for (long value : values) {
+      Assert.assertArrayEquals(BigInteger.valueOf(value).toByteArray(), DecimalParser.toByteArray(value));
+    }
+  }
+
+  private static void assertParsed(String value, int scale) {
+    byte[] expected = new BigDecimal(value).setScale(scale).unscaledValue().toByteArray();
+    Assert.assertArrayEquals(value, expected, DecimalParser.parseUnscaledBytes(value, scale));
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.common.util;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+/**
+ * Tests for {@link PrefetchInputStream}
+ */
+public class PrefetchInputStreamTest {
+
+  @Test
+  public void testRead() throws IOException {
+    byte[] data = new byte[100_000];
+    new Random(42).nextBytes(data);
+    int[][] blocks = {{1, 1}, {1, 1024}, {4, 1000}, {3, 100_000}, {2, 200_000}};
+    for (int[] block : blocks) {
+      try (InputStream stream = new PrefetchInputStream(new ByteArrayInputStream(data), block[0], block[1], "test")) {
+        Assert.assertArrayEquals(data, ByteStreams.toByteArray(stream));
+        Assert.assertEquals(-1, stream.read());
+      }
+    }
+  }
+
+  @Test
+  public void testReadSingleBytes() throws IOException {
+    byte[] data = {0, 1, -1, 127, -128, 42};
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (InputStream stream = new PrefetchInputStream(new ByteArrayInputStream(data), 2, 4, "test")) {
+      int value;
+      while ((value = stream.read()) != -1) {
+        output.write(value);
+      }
+    }
+    Assert.assertArrayEquals(data, output.toByteArray());
+  }
+
+  @Test
+  public void testReadEmpty() throws IOException {
+    try (InputStream stream = new PrefetchInputStream(new ByteArrayInputStream(new byte[0]), 2, 4, "test")) {
+      Assert.assertEquals(-1, stream.read(new byte[4], 0, 4));
+    }
+  }
+
+  @Test
+  public void testReadFailure() throws IOException {
+    InputStream source = new InputStream() {
+      private int count;
+
+      @Override
+      public int read() throws IOException {
+        if (count == 10) {
+          throw new IOException("Connection reset");
+        }
+        return count++;
+      }
+    };
+    try (InputStream stream = new PrefetchInputStream(source, 2, 4, "test")) {
+      byte[] data = new byte[10];
+      ByteStreams.readFully(stream, data);
+      Assert.assertArrayEquals(new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, data);
+      try {
+        stream.read();
+        Assert.fail("Failure of the source was not rethrown.");
+      } catch (IOException e) {
+        Assert.assertEquals("Connection reset", e.getCause().getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testCloseBeforeEnd() throws IOException {
+    CloseTrackingInputStream source = new CloseTrackingInputStream(new byte[1_000_000]);
+    InputStream stream = new PrefetchInputStream(source, 2, 1024, "test");
+    Assert.assertEquals(0, stream.read());
+    stream.close();
+    Assert.assertTrue(source.closed);
+    try {
+      stream.read();
+      Assert.fail("Closed stream was read.");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBlockSize() {
+    new PrefetchInputStream(new ByteArrayInputStream(new byte[0]), 2, 0, "test");
+  }
+
+  private static class CloseTrackingInputStream extends ByteArrayInputStream {
+    private volatile boolean closed;
+
+    private CloseTrackingInputStream(byte[] data) {
+      super(data);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+}
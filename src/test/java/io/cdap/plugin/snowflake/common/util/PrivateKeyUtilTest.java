@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.common.util;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.util.Base64;
+import javax.crypto.Cipher;
+import javax.crypto.EncryptedPrivateKeyInfo;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.PBEParameterSpec;
+
+/**
+ * Tests for {@link PrivateKeyUtil}
+ */
+public class PrivateKeyUtilTest {
+  private static final String PBE_ALGORITHM = "PBEWithSHA1AndDESede";
+  private static final String PASSPHRASE = "passphrase";
+
+  private static PrivateKey privateKey;
+
+  @BeforeClass
+  public static void generateKey() throws Exception {
+    KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+    generator.initialize(2048);
+    privateKey = generator.generateKeyPair().getPrivate();
+  }
+
+  @Test
+  public void testParsePrivateKey() {
+    String pem = toPem("PRIVATE KEY", privateKey.getEncoded());
+
+    Assert.assertEquals(privateKey, PrivateKeyUtil.parsePrivateKey(pem, null));
+    Assert.assertEquals(privateKey, PrivateKeyUtil.parsePrivateKey(pem, ""));
+  }
+
+  @Test
+  public void testParseEncryptedPrivateKey() throws Exception {
+    String pem = toPem("ENCRYPTED PRIVATE KEY", encrypt(privateKey.getEncoded()));
+
+    Assert.assertEquals(privateKey, PrivateKeyUtil.parsePrivateKey(pem, PASSPHRASE));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseEncryptedPrivateKeyWrongPassphrase() throws Exception {
+    String pem = toPem("ENCRYPTED PRIVATE KEY", encrypt(privateKey.getEncoded()));
+
+    PrivateKeyUtil.parsePrivateKey(pem, "wrong");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseInvalidPrivateKey() {
+    PrivateKeyUtil.parsePrivateKey(toPem("PRIVATE KEY", new byte[]{1, 2, 3}), null);
+  }
+
+  @Test
+  public void testGetPrivateKeyCached() {
+    String pem = toPem("PRIVATE KEY", privateKey.getEncoded());
+
+    Assert.assertSame(PrivateKeyUtil.getPrivateKey(pem, null), PrivateKeyUtil.getPrivateKey(pem, null));
+  }
+
+  private static byte[] encrypt(byte[] encoded) throws Exception {
+    byte[] salt = new byte[8];
+    new SecureRandom().nextBytes(salt);
+    Cipher cipher = Cipher.getInstance(PBE_ALGORITHM);
+    cipher.init(Cipher.ENCRYPT_MODE,
+                SecretKeyFactory.getInstance(PBE_ALGORITHM).generateSecret(new PBEKeySpec(PASSPHRASE.toCharArray())),
+                new PBEParameterSpec(salt, 2048));
+    return new EncryptedPrivateKeyInfo(cipher.getParameters(), cipher.doFinal(encoded)).getEncoded();
+  }
+
+  private static String toPem(String type, byte[] encoded) {
+    return String.format("-----BEGIN %s-----\n%s\n-----END %s-----\n",
+                         type, Base64.getMimeEncoder().encodeToString(encoded), type);
+  }
+}
@@ -140,4 +140,15 @@ public class QueryUtilTest {
     Assert.assertNotNull(actual);
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void testLimitQueryResult() {
+    String expected = "SELECT * FROM (select * from table limit 10) limit 5";
+
+    String query = "select * from table limit 10;";
+
+    String actual = QueryUtil.limitQueryResult(query, 5);
+
+    Assert.assertEquals(expected, actual);
+  }
 }
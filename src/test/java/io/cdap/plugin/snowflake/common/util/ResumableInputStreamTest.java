@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.common.util;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link ResumableInputStream}
+ */
+public class ResumableInputStreamTest {
+
+  @Test
+  public void testResumeAfterFailures() throws IOException {
+    byte[] data = new byte[10_000];
+    new Random(42).nextBytes(data);
+    // every opened stream fails after a few more bytes than the previous one
+    FlakySource source = new FlakySource(data, 3000, 3000);
+    try (InputStream stream = new ResumableInputStream(source::open, 1, 0, 0, "test")) {
+      Assert.assertArrayEquals(data, ByteStreams.toByteArray(stream));
+    }
+    Assert.assertEquals(4, source.opened);
+  }
+
+  @Test
+  public void testResumeSingleBytes() throws IOException {
+    byte[] data = {1, 2, 3, 4, 5};
+    FlakySource source = new FlakySource(data, 2, 2);
+    try (ResumableInputStream stream = new ResumableInputStream(source::open, 1, 0, 0, "test")) {
+      for (byte value : data) {
+        Assert.assertEquals(value, stream.read());
+      }
+      Assert.assertEquals(-1, stream.read());
+      Assert.assertEquals(data.length, stream.getPosition());
+    }
+  }
+
+  @Test
+  public void testRetriesExhausted() throws IOException {
+    byte[] data = new byte[100];
+    // every reopened stream fails before reaching the bytes not read yet
+    FlakySource source = new FlakySource(data, 50, 0);
+    try (InputStream stream = new ResumableInputStream(source::open, 2, 0, 0, "test")) {
+      ByteStreams.toByteArray(stream);
+      Assert.fail("Download failure was not rethrown.");
+    } catch (IOException e) {
+      Assert.assertEquals(3, source.opened);
+    }
+  }
+
+  @Test
+  public void testRetryOpen() throws IOException {
+    byte[] data = {1, 2, 3};
+    int[] attempts = {0};
+    ResumableInputStream.StreamOpener opener = () -> {
+      if (attempts[0]++ == 0) {
+        throw new IOException("Connection refused");
+      }
+      return new ByteArrayInputStream(data);
+    };
+    try (InputStream stream = new ResumableInputStream(opener, 1, 0, 0, "test")) {
+      Assert.assertArrayEquals(data, ByteStreams.toByteArray(stream));
+    }
+  }
+
+  @Test
+  public void testCloseDuringBackoff() throws Exception {
+    byte[] data = new byte[100];
+    FlakySource source = new FlakySource(data, 50, 0);
+    ResumableInputStream stream = new ResumableInputStream(source::open, 5, 1000, 1000, "test");
+    CountDownLatch failed = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<byte[]> read = executor.submit(() -> {
+        byte[] buffer = new byte[data.length];
+        ByteStreams.readFully(stream, buffer, 0, 50);
+        failed.countDown();
+        // fails and waits for the backoff, while the stream is closed
+        ByteStreams.readFully(stream, buffer, 50, 50);
+        return buffer;
+      });
+      Assert.assertTrue(failed.await(10, TimeUnit.SECONDS));
+      stream.close();
+      read.get(10, TimeUnit.SECONDS);
+      Assert.fail("Read of a closed stream did not fail.");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof IOException);
+      // the source is not reopened once the stream is closed
+      Assert.assertEquals(1, source.opened);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Source which fails after the given number of bytes, increased by the given step on every open.
+   */
+  private static class FlakySource {
+    private final byte[] data;
+    private final int step;
+    private int failAfter;
+    private volatile int opened;
+
+    private FlakySource(byte[] data, int failAfter, int step) {
+      this.data = data;
+      this.failAfter = failAfter;
+      this.step = step;
+    }
+
+    private InputStream open() {
+      opened++;
+      int limit = failAfter;
+      failAfter += step;
+      return new InputStream() {
+        private int position;
+
+        @Override
+        public int read() throws IOException {
+          if (position == data.length) {
+            return -1;
+          }
+          if (position >= limit) {
+            throw new IOException("Connection reset");
+          }
+          return data[position++] & 0xFF;
+        }
+      };
+    }
+  }
+}
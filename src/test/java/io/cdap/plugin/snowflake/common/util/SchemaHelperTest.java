@@ -38,6 +38,7 @@ import java.util.List;
 public class SchemaHelperTest {
 
   private static final String MOCK_STAGE = "mockStage";
+  private static final String IMPORT_QUERY = "SELECT * FROM TEST_TABLE";
 
   @Test
   public void testGetSchema() {
@@ -70,9 +71,9 @@ public class SchemaHelperTest {
     List<SnowflakeFieldDescriptor> sample = new ArrayList<>();
     sample.add(new SnowflakeFieldDescriptor("field1", -1000, false));
 
-    Mockito.when(snowflakeAccessor.describeQuery(null)).thenReturn(sample);
+    Mockito.when(snowflakeAccessor.describeQuery(IMPORT_QUERY)).thenReturn(sample);
 
-    SchemaHelper.getSchema(snowflakeAccessor, null, collector, null);
+    SchemaHelper.getSchema(snowflakeAccessor, null, collector, IMPORT_QUERY);
 
     ValidationAssertions.assertValidationFailed(
       collector, Collections.singletonList(SnowflakeBatchSourceConfig.PROPERTY_SCHEMA));
@@ -137,9 +138,44 @@ public class SchemaHelperTest {
       Schema.Field.of("field132", Schema.decimalOf(38))
     );
 
-    Mockito.when(snowflakeAccessor.describeQuery(null)).thenReturn(sample);
+    Mockito.when(snowflakeAccessor.describeQuery(IMPORT_QUERY)).thenReturn(sample);
 
-    Schema actual = SchemaHelper.getSchema(snowflakeAccessor, null, collector, null);
+    Schema actual = SchemaHelper.getSchema(snowflakeAccessor, null, collector, IMPORT_QUERY);
+
+    Assert.assertTrue(collector.getValidationFailures().isEmpty());
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testGetSchemaFromSnowflakeNarrowNumericTypes() throws IOException {
+    MockFailureCollector collector = new MockFailureCollector(MOCK_STAGE);
+    SnowflakeSourceAccessor snowflakeAccessor = Mockito.mock(SnowflakeSourceAccessor.class);
+
+    List<SnowflakeFieldDescriptor> sample = Arrays.asList(
+      new SnowflakeFieldDescriptor("field01", Types.BIGINT, true, 9, 0),
+      new SnowflakeFieldDescriptor("field02", Types.BIGINT, false, 10, 0),
+      new SnowflakeFieldDescriptor("field03", Types.BIGINT, false, 18, 0),
+      new SnowflakeFieldDescriptor("field04", Types.BIGINT, false, 38, 0),
+      new SnowflakeFieldDescriptor("field05", Types.DECIMAL, true, 18, 2),
+      new SnowflakeFieldDescriptor("field06", Types.DECIMAL, false, 0, 0),
+      new SnowflakeFieldDescriptor("field07", Types.DOUBLE, false, 38, 0),
+      new SnowflakeFieldDescriptor("field08", Types.VARCHAR, false, 16777216, 0));
+
+    Schema expected = Schema.recordOf(
+      "data",
+      Schema.Field.of("field01", Schema.nullableOf(Schema.of(Schema.Type.INT))),
+      Schema.Field.of("field02", Schema.of(Schema.Type.LONG)),
+      Schema.Field.of("field03", Schema.of(Schema.Type.LONG)),
+      Schema.Field.of("field04", Schema.decimalOf(38, 0)),
+      Schema.Field.of("field05", Schema.nullableOf(Schema.decimalOf(18, 2))),
+      Schema.Field.of("field06", Schema.decimalOf(38, 9)),
+      Schema.Field.of("field07", Schema.of(Schema.Type.DOUBLE)),
+      Schema.Field.of("field08", Schema.of(Schema.Type.STRING))
+    );
+
+    Mockito.when(snowflakeAccessor.describeQuery(IMPORT_QUERY)).thenReturn(sample);
+
+    Schema actual = SchemaHelper.getSchema(snowflakeAccessor, null, collector, IMPORT_QUERY, true);
 
     Assert.assertTrue(collector.getValidationFailures().isEmpty());
     Assert.assertEquals(expected, actual);
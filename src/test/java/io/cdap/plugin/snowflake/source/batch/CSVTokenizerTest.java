@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for {@link CSVTokenizer}
+ */
+public class CSVTokenizerTest {
+
+  @Test
+  public void testReadRecords() throws IOException {
+    CSVTokenizer tokenizer = tokenizer("ID,NAME,PRICE\n1,\"first\",10.5\n2,second,\n", 1024);
+
+    Assert.assertArrayEquals(new String[]{"ID", "NAME", "PRICE"}, tokenizer.readRecord());
+    Assert.assertArrayEquals(new String[]{"1", "first", "10.5"}, tokenizer.readRecord());
+    Assert.assertArrayEquals(new String[]{"2", "second", null}, tokenizer.readRecord());
+    Assert.assertNull(tokenizer.readRecord());
+  }
+
+  @Test
+  public void testNullAndEmptyString() throws IOException {
+    CSVTokenizer tokenizer = tokenizer(",\"\",", 1024);
+
+    Assert.assertTrue(tokenizer.nextRecord());
+    Assert.assertEquals(3, tokenizer.getFieldCount());
+    Assert.assertTrue(tokenizer.isNull(0));
+    Assert.assertFalse(tokenizer.isNull(1));
+    Assert.assertEquals("", tokenizer.getString(1));
+    Assert.assertNull(tokenizer.getString(2));
+    Assert.assertNull(tokenizer.getString(3));
+    Assert.assertFalse(tokenizer.nextRecord());
+  }
+
+  @Test
+  public void testEnclosedFields() throws IOException {
+    CSVTokenizer tokenizer = tokenizer("\"a,b\",\"say \"\"hi\"\"\",\"line1\r\nline2\"\r\n\"\"\"\"\n", 1024);
+
+    Assert.assertArrayEquals(new String[]{"a,b", "say \"hi\"", "line1\r\nline2"}, tokenizer.readRecord());
+    Assert.assertArrayEquals(new String[]{"\""}, tokenizer.readRecord());
+    Assert.assertNull(tokenizer.readRecord());
+  }
+
+  @Test
+  public void testMultiByteCharacters() throws IOException {
+    CSVTokenizer tokenizer = tokenizer("Привіт,\"日本語\",ñ\n", 1024);
+
+    Assert.assertArrayEquals(new String[]{"Привіт", "日本語", "ñ"}, tokenizer.readRecord());
+  }
+
+  @Test
+  public void testRecordsSpanningBufferBoundaries() throws IOException {
+    StringBuilder data = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      data.append(i).append(",\"value \"\"").append(i).append("\"\"\",text_").append(i).append("\n");
+    }
+    CSVTokenizer tokenizer = tokenizer(data.toString(), 4);
+
+    for (int i = 0; i < 100; i++) {
+      Assert.assertArrayEquals(new String[]{String.valueOf(i), "value \"" + i + "\"", "text_" + i},
+                               tokenizer.readRecord());
+    }
+    Assert.assertNull(tokenizer.readRecord());
+  }
+
+  @Test
+  public void testWideRecord() throws IOException {
+    StringBuilder data = new StringBuilder();
+    for (int i = 0; i < 200; i++) {
+      data.append(i > 0 ? "," : "").append(i);
+    }
+    CSVTokenizer tokenizer = tokenizer(data.toString(), 16);
+
+    Assert.assertTrue(tokenizer.nextRecord());
+    Assert.assertEquals(200, tokenizer.getFieldCount());
+    Assert.assertEquals("199", tokenizer.getString(199));
+  }
+
+  @Test(expected = IOException.class)
+  public void testUnterminatedEnclosedField() throws IOException {
+    tokenizer("1,\"abc\n", 1024).nextRecord();
+  }
+
+  private static CSVTokenizer tokenizer(String data, int bufferSize) {
+    return new CSVTokenizer(new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), bufferSize);
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import org.apache.parquet.io.InputFile;
+import org.apache.parquet.io.SeekableInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Parquet file in memory, used to read files written by {@link ParquetTestFiles} without writing them to disk.
+ */
+class InMemoryInputFile implements InputFile {
+
+  private final byte[] data;
+
+  InMemoryInputFile(byte[] data) {
+    this.data = data;
+  }
+
+  @Override
+  public long getLength() {
+    return data.length;
+  }
+
+  @Override
+  public SeekableInputStream newStream() {
+    return new ByteArraySeekableInputStream();
+  }
+
+  private final class ByteArraySeekableInputStream extends SeekableInputStream {
+    private int position;
+
+    @Override
+    public long getPos() {
+      return position;
+    }
+
+    @Override
+    public void seek(long newPos) throws IOException {
+      if (newPos < 0 || newPos > data.length) {
+        throw new EOFException(String.format("Cannot seek to %d in a file of %d bytes.", newPos, data.length));
+      }
+      position = (int) newPos;
+    }
+
+    @Override
+    public int read() {
+      return position < data.length ? data[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+      if (length == 0) {
+        return 0;
+      }
+      int read = Math.min(length, data.length - position);
+      if (read <= 0) {
+        return -1;
+      }
+      System.arraycopy(data, position, bytes, offset, read);
+      position += read;
+      return read;
+    }
+
+    @Override
+    public void readFully(byte[] bytes) throws IOException {
+      readFully(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void readFully(byte[] bytes, int offset, int length) throws IOException {
+      if (length > data.length - position) {
+        throw new EOFException(String.format("Cannot read %d bytes at %d in a file of %d bytes.",
+                                             length, position, data.length));
+      }
+      System.arraycopy(data, position, bytes, offset, length);
+      position += length;
+    }
+
+    @Override
+    public int read(ByteBuffer buffer) {
+      int read = Math.min(buffer.remaining(), data.length - position);
+      if (read <= 0) {
+        return buffer.hasRemaining() ? -1 : 0;
+      }
+      buffer.put(data, position, read);
+      position += read;
+      return read;
+    }
+
+    @Override
+    public void readFully(ByteBuffer buffer) throws IOException {
+      int length = buffer.remaining();
+      if (length > data.length - position) {
+        throw new EOFException(String.format("Cannot read %d bytes at %d in a file of %d bytes.",
+                                             length, position, data.length));
+      }
+      buffer.put(data, position, length);
+      position += length;
+    }
+  }
+}
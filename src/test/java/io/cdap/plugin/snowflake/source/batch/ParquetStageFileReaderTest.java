@@ -0,0 +1,249 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.format.UnexpectedFormatException;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.api.Binary;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link ParquetStageFileReader}
+ */
+public class ParquetStageFileReaderTest {
+
+  private static final MessageType PARQUET_SCHEMA = MessageTypeParser.parseMessageType(
+    "message schema {\n" +
+      "  optional fixed_len_byte_array(16) COLUMN_ID (DECIMAL(38,0));\n" +
+      "  optional int64 COLUMN_AMOUNT (DECIMAL(18,2));\n" +
+      "  optional int32 COLUMN_QUANTITY (DECIMAL(9,0));\n" +
+      "  optional int64 COLUMN_BIGINT (DECIMAL(18,0));\n" +
+      "  optional double COLUMN_DOUBLE;\n" +
+      "  optional binary COLUMN_VARCHAR (UTF8);\n" +
+      "  optional binary COLUMN_BINARY;\n" +
+      "  optional boolean COLUMN_BOOLEAN;\n" +
+      "  optional int32 COLUMN_DATE (DATE);\n" +
+      "  optional int64 COLUMN_TIMESTAMP_MILLIS (TIMESTAMP_MILLIS);\n" +
+      "  optional int64 COLUMN_TIMESTAMP_NANOS;\n" +
+      "  optional int32 COLUMN_TIME (TIME_MILLIS);\n" +
+      "  optional binary COLUMN_VARIANT (UTF8);\n" +
+      "  optional binary COLUMN_TEXT_NUMBER (UTF8);\n" +
+      "  optional binary COLUMN_IGNORED (UTF8);\n" +
+      "}");
+
+  private static final Schema SCHEMA = Schema.recordOf(
+    "output",
+    Schema.Field.of("COLUMN_ID", Schema.nullableOf(Schema.decimalOf(38))),
+    Schema.Field.of("COLUMN_AMOUNT", Schema.nullableOf(Schema.decimalOf(18, 2))),
+    Schema.Field.of("COLUMN_QUANTITY", Schema.nullableOf(Schema.of(Schema.Type.INT))),
+    Schema.Field.of("COLUMN_BIGINT", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+    Schema.Field.of("COLUMN_DOUBLE", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))),
+    Schema.Field.of("COLUMN_VARCHAR", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("COLUMN_BINARY", Schema.nullableOf(Schema.of(Schema.Type.BYTES))),
+    Schema.Field.of("COLUMN_BOOLEAN", Schema.nullableOf(Schema.of(Schema.Type.BOOLEAN))),
+    Schema.Field.of("COLUMN_DATE", Schema.nullableOf(Schema.of(Schema.LogicalType.DATE))),
+    Schema.Field.of("COLUMN_TIMESTAMP_MILLIS", Schema.nullableOf(Schema.of(Schema.LogicalType.TIMESTAMP_MICROS))),
+    Schema.Field.of("COLUMN_TIMESTAMP_NANOS", Schema.nullableOf(Schema.of(Schema.LogicalType.TIMESTAMP_MICROS))),
+    Schema.Field.of("COLUMN_TIME", Schema.nullableOf(Schema.of(Schema.LogicalType.TIME_MICROS))),
+    Schema.Field.of("COLUMN_VARIANT", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+    Schema.Field.of("COLUMN_TEXT_NUMBER", Schema.nullableOf(Schema.of(Schema.Type.INT))),
+    Schema.Field.of("COLUMN_ABSENT", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+
+  @Test
+  public void testRead() throws IOException {
+    SimpleGroupFactory factory = new SimpleGroupFactory(PARQUET_SCHEMA);
+    Group row = factory.newGroup()
+      .append("COLUMN_ID", toFixed(new BigInteger("-12345678901234567890123"), 16))
+      .append("COLUMN_AMOUNT", 1234567L)
+      .append("COLUMN_QUANTITY", 42)
+      .append("COLUMN_BIGINT", 9_000_000_000L)
+      .append("COLUMN_DOUBLE", 1.5)
+      .append("COLUMN_VARCHAR", "text, \"quoted\"")
+      .append("COLUMN_BINARY", Binary.fromConstantByteArray(new byte[]{0, 1, -1}))
+      .append("COLUMN_BOOLEAN", true)
+      .append("COLUMN_DATE", (int) LocalDate.of(2019, 1, 1).toEpochDay())
+      .append("COLUMN_TIMESTAMP_MILLIS", 1546304461123L)
+      .append("COLUMN_TIMESTAMP_NANOS", -1L)
+      .append("COLUMN_TIME", 3661001)
+      .append("COLUMN_VARIANT", "{\"key\": [1, 2]}")
+      .append("COLUMN_TEXT_NUMBER", "17")
+      .append("COLUMN_IGNORED", "ignored");
+    Group nullRow = factory.newGroup();
+
+    List<StructuredRecord> records = read(Arrays.asList(row, nullRow), SCHEMA);
+
+    Assert.assertEquals(2, records.size());
+    StructuredRecord record = records.get(0);
+    Assert.assertEquals(new BigDecimal("-12345678901234567890123"), record.getDecimal("COLUMN_ID"));
+    Assert.assertEquals(new BigDecimal("12345.67"), record.getDecimal("COLUMN_AMOUNT"));
+    Assert.assertEquals(42, (int) record.get("COLUMN_QUANTITY"));
+    Assert.assertEquals(9_000_000_000L, (long) record.get("COLUMN_BIGINT"));
+    Assert.assertEquals(1.5, record.get("COLUMN_DOUBLE"), 0);
+    Assert.assertEquals("text, \"quoted\"", record.get("COLUMN_VARCHAR"));
+    Assert.assertArrayEquals(new byte[]{0, 1, -1}, record.get("COLUMN_BINARY"));
+    Assert.assertEquals(true, record.get("COLUMN_BOOLEAN"));
+    Assert.assertEquals(LocalDate.of(2019, 1, 1), record.getDate("COLUMN_DATE"));
+    Assert.assertEquals(1546304461123000L, (long) record.get("COLUMN_TIMESTAMP_MILLIS"));
+    Assert.assertEquals(-1L, (long) record.get("COLUMN_TIMESTAMP_NANOS"));
+    Assert.assertEquals(TimeUnit.MILLISECONDS.toMicros(3661001), (long) record.get("COLUMN_TIME"));
+    Assert.assertEquals("{\"key\": [1, 2]}", record.get("COLUMN_VARIANT"));
+    Assert.assertEquals(17, (int) record.get("COLUMN_TEXT_NUMBER"));
+    Assert.assertNull(record.get("COLUMN_ABSENT"));
+
+    StructuredRecord nullRecord = records.get(1);
+    for (Schema.Field field : SCHEMA.getFields()) {
+      Assert.assertNull(field.getName(), nullRecord.get(field.getName()));
+    }
+  }
+
+  @Test
+  public void testReadConvertedNumbers() throws IOException {
+    Schema schema = Schema.recordOf(
+      "output",
+      Schema.Field.of("COLUMN_ID", Schema.of(Schema.Type.LONG)),
+      Schema.Field.of("COLUMN_AMOUNT", Schema.decimalOf(38, 4)),
+      Schema.Field.of("COLUMN_QUANTITY", Schema.of(Schema.Type.STRING)),
+      Schema.Field.of("COLUMN_BIGINT", Schema.of(Schema.Type.DOUBLE)));
+    Group row = new SimpleGroupFactory(PARQUET_SCHEMA).newGroup()
+      .append("COLUMN_ID", toFixed(BigInteger.valueOf(-5), 16))
+      .append("COLUMN_AMOUNT", -1234567L)
+      .append("COLUMN_QUANTITY", 42)
+      .append("COLUMN_BIGINT", 9_000_000_000L);
+
+    StructuredRecord record = read(Collections.singletonList(row), schema).get(0);
+
+    Assert.assertEquals(-5L, (long) record.get("COLUMN_ID"));
+    Assert.assertEquals(new BigDecimal("-12345.6700"), record.getDecimal("COLUMN_AMOUNT"));
+    Assert.assertEquals("42", record.get("COLUMN_QUANTITY"));
+    Assert.assertEquals(9_000_000_000d, record.get("COLUMN_BIGINT"), 0);
+  }
+
+  @Test
+  public void testReadDictionaryEncoded() throws IOException {
+    Schema schema = Schema.recordOf(
+      "output",
+      Schema.Field.of("COLUMN_VARCHAR", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("COLUMN_TEXT_NUMBER", Schema.nullableOf(Schema.of(Schema.Type.INT))));
+    SimpleGroupFactory factory = new SimpleGroupFactory(PARQUET_SCHEMA);
+    List<Group> rows = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      Group row = factory.newGroup();
+      if (i % 3 != 0) {
+        row.append("COLUMN_VARCHAR", "value_" + i % 7).append("COLUMN_TEXT_NUMBER", String.valueOf(i % 5));
+      }
+      rows.add(row);
+    }
+
+    List<StructuredRecord> records = read(rows, schema);
+
+    Assert.assertEquals(rows.size(), records.size());
+    for (int i = 0; i < records.size(); i++) {
+      StructuredRecord record = records.get(i);
+      Assert.assertEquals(i % 3 == 0 ? null : "value_" + i % 7, record.get("COLUMN_VARCHAR"));
+      Assert.assertEquals(i % 3 == 0 ? null : i % 5, record.<Integer>get("COLUMN_TEXT_NUMBER"));
+    }
+  }
+
+  @Test
+  public void testReadAcrossRowGroups() throws IOException {
+    Schema schema = Schema.recordOf(
+      "output",
+      Schema.Field.of("COLUMN_BIGINT", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+      Schema.Field.of("COLUMN_VARCHAR", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    SimpleGroupFactory factory = new SimpleGroupFactory(PARQUET_SCHEMA);
+    List<Group> rows = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      Group row = factory.newGroup().append("COLUMN_BIGINT", (long) i);
+      if (i % 2 == 0) {
+        row.append("COLUMN_VARCHAR", "value_" + i);
+      }
+      rows.add(row);
+    }
+    // small row groups, so that the file has several of them
+    byte[] file = ParquetTestFiles.write(PARQUET_SCHEMA, CompressionCodecName.SNAPPY, 16 * 1024, rows);
+
+    try (ParquetStageFileReader reader = new ParquetStageFileReader(new InMemoryInputFile(file), schema)) {
+      for (int i = 0; i < rows.size(); i++) {
+        StructuredRecord record = reader.next();
+        Assert.assertNotNull(record);
+        Assert.assertEquals(i, (long) record.get("COLUMN_BIGINT"));
+        Assert.assertEquals(i % 2 == 0 ? "value_" + i : null, record.get("COLUMN_VARCHAR"));
+        Assert.assertEquals(i + 1, reader.getRowsRead());
+      }
+      Assert.assertNull(reader.next());
+    }
+  }
+
+  @Test(expected = UnexpectedFormatException.class)
+  public void testReadUnsupportedType() throws IOException {
+    Schema schema = Schema.recordOf("output", Schema.Field.of("COLUMN_BOOLEAN", Schema.of(Schema.Type.INT)));
+    Group row = new SimpleGroupFactory(PARQUET_SCHEMA).newGroup().append("COLUMN_BOOLEAN", true);
+
+    read(Collections.singletonList(row), schema);
+  }
+
+  @Test
+  public void testTransformDecodedRow() throws IOException {
+    Group row = new SimpleGroupFactory(PARQUET_SCHEMA).newGroup()
+      .append("COLUMN_VARCHAR", Binary.fromConstantByteArray("text".getBytes(StandardCharsets.UTF_8)));
+    StructuredRecord record = read(Collections.singletonList(row), SCHEMA).get(0);
+
+    SnowflakeMapToRecordTransformer transformer = new SnowflakeMapToRecordTransformer(SCHEMA);
+
+    Assert.assertSame(record, transformer.transform(new SnowflakeRow(() -> record)));
+  }
+
+  private static List<StructuredRecord> read(List<Group> rows, Schema schema) throws IOException {
+    byte[] file = ParquetTestFiles.write(PARQUET_SCHEMA, CompressionCodecName.SNAPPY, rows);
+    List<StructuredRecord> records = new ArrayList<>();
+    try (ParquetStageFileReader reader = new ParquetStageFileReader(new InMemoryInputFile(file), schema)) {
+      Assert.assertEquals(rows.size(), reader.getRowCount());
+      StructuredRecord record;
+      while ((record = reader.next()) != null) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  private static Binary toFixed(BigInteger value, int length) {
+    byte[] bytes = value.toByteArray();
+    byte[] fixed = new byte[length];
+    Arrays.fill(fixed, 0, length - bytes.length, (byte) (value.signum() < 0 ? -1 : 0));
+    System.arraycopy(bytes, 0, fixed, length - bytes.length, bytes.length);
+    return Binary.fromConstantByteArray(fixed);
+  }
+}
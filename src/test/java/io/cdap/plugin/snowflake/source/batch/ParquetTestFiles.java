@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.hadoop.ParquetWriter;
+import org.apache.parquet.hadoop.api.WriteSupport;
+import org.apache.parquet.hadoop.example.GroupWriteSupport;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.io.OutputFile;
+import org.apache.parquet.io.PositionOutputStream;
+import org.apache.parquet.schema.MessageType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Writes Parquet files in memory, the same way as they are unloaded into the stage.
+ */
+public final class ParquetTestFiles {
+
+  private ParquetTestFiles() {
+  }
+
+  /**
+   * @param schema Parquet schema of the file.
+   * @param codec compression codec of the file.
+   * @param rows rows of the file.
+   * @return content of the file.
+   */
+  public static byte[] write(MessageType schema, CompressionCodecName codec, Iterable<Group> rows)
+    throws IOException {
+    return write(schema, codec, ParquetWriter.DEFAULT_BLOCK_SIZE, rows);
+  }
+
+  /**
+   * @param schema Parquet schema of the file.
+   * @param codec compression codec of the file.
+   * @param rowGroupSize size of the row groups in bytes.
+   * @param rows rows of the file.
+   * @return content of the file.
+   */
+  public static byte[] write(MessageType schema, CompressionCodecName codec, int rowGroupSize, Iterable<Group> rows)
+    throws IOException {
+    InMemoryOutputFile file = new InMemoryOutputFile();
+    try (ParquetWriter<Group> writer = new GroupWriterBuilder(file, schema).withCompressionCodec(codec)
+      .withRowGroupSize(rowGroupSize).build()) {
+      for (Group row : rows) {
+        writer.write(row);
+      }
+    }
+    return file.stream.toByteArray();
+  }
+
+  private static final class GroupWriterBuilder extends ParquetWriter.Builder<Group, GroupWriterBuilder> {
+    private final MessageType schema;
+
+    private GroupWriterBuilder(OutputFile file, MessageType schema) {
+      super(file);
+      this.schema = schema;
+    }
+
+    @Override
+    protected GroupWriterBuilder self() {
+      return this;
+    }
+
+    @Override
+    protected WriteSupport<Group> getWriteSupport(Configuration conf) {
+      GroupWriteSupport.setSchema(schema, conf);
+      return new GroupWriteSupport();
+    }
+  }
+
+  private static final class InMemoryOutputFile implements OutputFile {
+    private final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+    @Override
+    public PositionOutputStream create(long blockSizeHint) {
+      return new PositionOutputStream() {
+        @Override
+        public long getPos() {
+          return stream.size();
+        }
+
+        @Override
+        public void write(int b) {
+          stream.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          stream.write(b, off, len);
+        }
+      };
+    }
+
+    @Override
+    public PositionOutputStream createOrOverwrite(long blockSizeHint) {
+      return create(blockSizeHint);
+    }
+
+    @Override
+    public boolean supportsBlockSize() {
+      return false;
+    }
+
+    @Override
+    public long defaultBlockSize() {
+      return 0;
+    }
+  }
+}
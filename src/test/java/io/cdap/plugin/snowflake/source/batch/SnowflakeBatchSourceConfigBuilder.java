@@ -38,7 +38,17 @@ public class SnowflakeBatchSourceConfigBuilder {
     "",
     0L,
     "",
-    "");
+    "",
+    false,
+    null,
+    null,
+    null,
+    null,
+    null,
+    null,
+    null,
+    null,
+    null);
 
   private String referenceName;
   private String accountName;
@@ -57,6 +67,16 @@ public class SnowflakeBatchSourceConfigBuilder {
   private Long maxSplitSize;
   private String connectionArguments;
   private String schema;
+  private Boolean narrowNumericTypes;
+  private String readMode;
+  private Long directReadThreshold;
+  private String stageFormat;
+  private String stageCompression;
+  private Long prefetchMemory;
+  private Integer downloadRetries;
+  private Long minSplitSize;
+  private Boolean autoSplitSize;
+  private Integer targetWaves;
 
   public SnowflakeBatchSourceConfigBuilder() {
   }
@@ -79,6 +99,16 @@ public class SnowflakeBatchSourceConfigBuilder {
     this.maxSplitSize = config.getMaxSplitSize();
     this.connectionArguments = config.getConnectionArguments();
     this.schema = config.getSchema();
+    this.narrowNumericTypes = config.getNarrowNumericTypes();
+    this.readMode = config.getReadMode().getValue();
+    this.directReadThreshold = config.getDirectReadThreshold();
+    this.stageFormat = config.getStageFormat().getValue();
+    this.stageCompression = config.getStageCompression().getValue();
+    this.prefetchMemory = config.getPrefetchMemory();
+    this.downloadRetries = config.getDownloadRetries();
+    this.minSplitSize = config.getMinSplitSize();
+    this.autoSplitSize = config.getAutoSplitSize();
+    this.targetWaves = config.getTargetWaves();
   }
 
   public SnowflakeBatchSourceConfigBuilder setReferenceName(String referenceName) {
@@ -166,6 +196,56 @@ public class SnowflakeBatchSourceConfigBuilder {
     return this;
   }
 
+  public SnowflakeBatchSourceConfigBuilder setNarrowNumericTypes(Boolean narrowNumericTypes) {
+    this.narrowNumericTypes = narrowNumericTypes;
+    return this;
+  }
+
+  public SnowflakeBatchSourceConfigBuilder setReadMode(String readMode) {
+    this.readMode = readMode;
+    return this;
+  }
+
+  public SnowflakeBatchSourceConfigBuilder setDirectReadThreshold(Long directReadThreshold) {
+    this.directReadThreshold = directReadThreshold;
+    return this;
+  }
+
+  public SnowflakeBatchSourceConfigBuilder setStageFormat(String stageFormat) {
+    this.stageFormat = stageFormat;
+    return this;
+  }
+
+  public SnowflakeBatchSourceConfigBuilder setStageCompression(String stageCompression) {
+    this.stageCompression = stageCompression;
+    return this;
+  }
+
+  public SnowflakeBatchSourceConfigBuilder setPrefetchMemory(Long prefetchMemory) {
+    this.prefetchMemory = prefetchMemory;
+    return this;
+  }
+
+  public SnowflakeBatchSourceConfigBuilder setDownloadRetries(Integer downloadRetries) {
+    this.downloadRetries = downloadRetries;
+    return this;
+  }
+
+  public SnowflakeBatchSourceConfigBuilder setMinSplitSize(Long minSplitSize) {
+    this.minSplitSize = minSplitSize;
+    return this;
+  }
+
+  public SnowflakeBatchSourceConfigBuilder setAutoSplitSize(Boolean autoSplitSize) {
+    this.autoSplitSize = autoSplitSize;
+    return this;
+  }
+
+  public SnowflakeBatchSourceConfigBuilder setTargetWaves(Integer targetWaves) {
+    this.targetWaves = targetWaves;
+    return this;
+  }
+
   public SnowflakeBatchSourceConfig build() {
     return new SnowflakeBatchSourceConfig(referenceName,
                                           accountName,
@@ -183,6 +263,16 @@ public class SnowflakeBatchSourceConfigBuilder {
                                           refreshToken,
                                           maxSplitSize,
                                           connectionArguments,
-                                          schema);
+                                          schema,
+                                          narrowNumericTypes,
+                                          readMode,
+                                          directReadThreshold,
+                                          stageFormat,
+                                          stageCompression,
+                                          prefetchMemory,
+                                          downloadRetries,
+                                          minSplitSize,
+                                          autoSplitSize,
+                                          targetWaves);
   }
 }
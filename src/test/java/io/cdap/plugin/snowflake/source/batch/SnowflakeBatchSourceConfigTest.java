@@ -68,4 +68,127 @@ public class SnowflakeBatchSourceConfigTest {
     ValidationAssertions.assertValidationFailed(
       collector, Collections.singletonList(SnowflakeBatchSourceConfig.PROPERTY_PASSWORD));
   }
+
+  @Test
+  public void validateReadMode() {
+    SnowflakeBatchSourceConfig config =
+      new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+        .setReadMode("unknown")
+        .build();
+
+    MockFailureCollector collector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(collector);
+    collector.getValidationFailures().remove(collector.getValidationFailures().size() - 1);
+
+    ValidationAssertions.assertValidationFailed(
+      collector, Collections.singletonList(SnowflakeBatchSourceConfig.PROPERTY_READ_MODE));
+  }
+
+  @Test
+  public void validateDirectReadThreshold() {
+    SnowflakeBatchSourceConfig config =
+      new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+        .setDirectReadThreshold(-1L)
+        .build();
+
+    MockFailureCollector collector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(collector);
+    collector.getValidationFailures().remove(collector.getValidationFailures().size() - 1);
+
+    ValidationAssertions.assertValidationFailed(
+      collector, Collections.singletonList(SnowflakeBatchSourceConfig.PROPERTY_DIRECT_READ_THRESHOLD));
+  }
+
+  @Test
+  public void validateStageCompression() {
+    SnowflakeBatchSourceConfig config =
+      new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+        .setStageCompression("LZ4")
+        .build();
+
+    MockFailureCollector collector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(collector);
+    collector.getValidationFailures().remove(collector.getValidationFailures().size() - 1);
+
+    ValidationAssertions.assertValidationFailed(
+      collector, Collections.singletonList(SnowflakeBatchSourceConfig.PROPERTY_STAGE_COMPRESSION));
+  }
+
+  @Test
+  public void validatePrefetchMemory() {
+    SnowflakeBatchSourceConfig config =
+      new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+        .setPrefetchMemory(-1L)
+        .build();
+
+    MockFailureCollector collector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(collector);
+    collector.getValidationFailures().remove(collector.getValidationFailures().size() - 1);
+
+    ValidationAssertions.assertValidationFailed(
+      collector, Collections.singletonList(SnowflakeBatchSourceConfig.PROPERTY_PREFETCH_MEMORY));
+  }
+
+  @Test
+  public void validateDownloadRetries() {
+    SnowflakeBatchSourceConfig config =
+      new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+        .setDownloadRetries(-1)
+        .build();
+
+    MockFailureCollector collector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(collector);
+    collector.getValidationFailures().remove(collector.getValidationFailures().size() - 1);
+
+    ValidationAssertions.assertValidationFailed(
+      collector, Collections.singletonList(SnowflakeBatchSourceConfig.PROPERTY_DOWNLOAD_RETRIES));
+  }
+
+  @Test
+  public void validateMinSplitSize() {
+    SnowflakeBatchSourceConfig config =
+      new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+        .setMinSplitSize(-1L)
+        .build();
+
+    MockFailureCollector collector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(collector);
+    collector.getValidationFailures().remove(collector.getValidationFailures().size() - 1);
+
+    ValidationAssertions.assertValidationFailed(
+      collector, Collections.singletonList(SnowflakeBatchSourceConfig.PROPERTY_MIN_SPLIT_SIZE));
+  }
+
+  @Test
+  public void validateTargetWaves() {
+    SnowflakeBatchSourceConfig config =
+      new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+        .setTargetWaves(0)
+        .build();
+
+    MockFailureCollector collector = new MockFailureCollector(MOCK_STAGE);
+    config.validate(collector);
+    collector.getValidationFailures().remove(collector.getValidationFailures().size() - 1);
+
+    ValidationAssertions.assertValidationFailed(
+      collector, Collections.singletonList(SnowflakeBatchSourceConfig.PROPERTY_TARGET_WAVES));
+  }
+
+  @Test
+  public void getReadMode() {
+    SnowflakeBatchSourceConfigBuilder builder =
+      new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG);
+
+    Assert.assertEquals(ReadMode.STAGE, builder.setReadMode(null).build().getReadMode());
+    Assert.assertEquals(ReadMode.RESULT_CHUNKS, builder.setReadMode("Result Chunks").build().getReadMode());
+  }
+
+  @Test
+  public void getStageCompression() {
+    SnowflakeBatchSourceConfigBuilder builder =
+      new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG);
+
+    Assert.assertEquals(StageCompression.GZIP, builder.setStageCompression(null).build().getStageCompression());
+    Assert.assertEquals(StageCompression.ZSTD, builder.setStageCompression("zstd").build().getStageCompression());
+  }
 }
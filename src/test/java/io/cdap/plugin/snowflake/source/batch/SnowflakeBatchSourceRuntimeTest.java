@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import io.cdap.cdap.api.dataset.lib.KeyValue;
+import io.cdap.cdap.etl.api.Emitter;
+import io.cdap.cdap.etl.api.batch.BatchRuntimeContext;
+import io.cdap.plugin.snowflake.common.client.SnowflakeFieldDescriptor;
+import org.apache.hadoop.io.NullWritable;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.sql.Types;
+import java.util.Collections;
+
+/**
+ * Tests for the runtime part of {@link SnowflakeBatchSource}, which does not connect to Snowflake.
+ */
+public class SnowflakeBatchSourceRuntimeTest {
+
+  private static final String IMPORT_QUERY = "SELECT * FROM TEST_TABLE";
+  private static final Schema SCHEMA = Schema.recordOf(
+    "output", Schema.Field.of("NAME", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+
+  @Test
+  public void testOutputSchemaUsed() throws IOException {
+    SnowflakeBatchSourceConfig config = new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+      .setSchema(null)
+      .build();
+
+    Schema schema = SnowflakeBatchSource.getRuntimeSchema(SCHEMA, config, () -> {
+      throw new AssertionError("Import query must not be described.");
+    });
+
+    Assert.assertEquals(SCHEMA, schema);
+  }
+
+  @Test
+  public void testNullOutputSchemaWithProvidedSchema() throws IOException {
+    SnowflakeBatchSourceConfig config = new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+      .setSchema(SCHEMA.toString())
+      .build();
+
+    Schema schema = SnowflakeBatchSource.getRuntimeSchema(null, config, () -> {
+      throw new AssertionError("Import query must not be described.");
+    });
+
+    Assert.assertEquals(SCHEMA, schema);
+  }
+
+  @Test
+  public void testNullOutputSchemaWithMacroConnection() throws IOException {
+    // connection properties were macros at deployment, so the output schema is unknown until the pipeline runs
+    SnowflakeBatchSourceConfig config = new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+      .setSchema(null)
+      .setImportQuery(IMPORT_QUERY)
+      .build();
+    SnowflakeSourceAccessor accessor = Mockito.mock(SnowflakeSourceAccessor.class);
+    Mockito.when(accessor.describeQuery(IMPORT_QUERY))
+      .thenReturn(Collections.singletonList(new SnowflakeFieldDescriptor("NAME", Types.VARCHAR, true)));
+
+    Schema schema = SnowflakeBatchSource.getRuntimeSchema(null, config, () -> accessor);
+
+    Assert.assertEquals(SCHEMA.getFields(), schema.getFields());
+  }
+
+  @Test
+  public void testInitializeWithNullOutputSchema() throws Exception {
+    SnowflakeBatchSourceConfig config = new SnowflakeBatchSourceConfigBuilder(SnowflakeBatchSourceConfigBuilder.CONFIG)
+      .setSchema(SCHEMA.toString())
+      .build();
+    BatchRuntimeContext context = Mockito.mock(BatchRuntimeContext.class);
+    Mockito.when(context.getOutputSchema()).thenReturn(null);
+    SnowflakeBatchSource source = new SnowflakeBatchSource(config);
+
+    source.initialize(context);
+    @SuppressWarnings("unchecked")
+    Emitter<StructuredRecord> emitter = Mockito.mock(Emitter.class);
+    String[] values = {"name"};
+    source.transform(new KeyValue<>(NullWritable.get(), new SnowflakeRow(new String[]{"NAME"}, i -> values[i])),
+                     emitter);
+
+    ArgumentCaptor<StructuredRecord> record = ArgumentCaptor.forClass(StructuredRecord.class);
+    Mockito.verify(emitter).emit(record.capture());
+    Assert.assertEquals("name", record.getValue().get("NAME"));
+  }
+}
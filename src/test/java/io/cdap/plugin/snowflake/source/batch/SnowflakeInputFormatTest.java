@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Tests for {@link SnowflakeInputFormat}
+ */
+public class SnowflakeInputFormatTest {
+
+  @Test
+  public void testGetStageSplits() {
+    List<StageFile> stageFiles = Arrays.asList(
+      new StageFile("data_0", 100), new StageFile("data_1", 10), new StageFile("data_2", 300),
+      new StageFile("data_3", 20), new StageFile("data_4", 40), new StageFile("data_5", 5));
+
+    List<SnowflakeSplit> splits = SnowflakeInputFormat.getStageSplits(stageFiles, 50);
+
+    Assert.assertEquals(Arrays.asList(Arrays.asList("data_2"), Arrays.asList("data_0"),
+                                      Arrays.asList("data_4", "data_3"), Arrays.asList("data_1", "data_5")),
+                        getNames(splits));
+    Assert.assertEquals(Arrays.asList(300L, 100L, 60L, 15L),
+                        splits.stream().map(SnowflakeSplit::getLength).collect(Collectors.toList()));
+  }
+
+  @Test
+  public void testGetStageSplitsWithoutCoalescing() {
+    List<StageFile> stageFiles = Arrays.asList(
+      new StageFile("data_0", 1), new StageFile("data_1", 3), new StageFile("data_2", 2));
+
+    List<SnowflakeSplit> splits = SnowflakeInputFormat.getStageSplits(stageFiles, 0);
+
+    Assert.assertEquals(Arrays.asList(Arrays.asList("data_1"), Arrays.asList("data_2"), Arrays.asList("data_0")),
+                        getNames(splits));
+  }
+
+  @Test
+  public void testGetAutoSplitSize() {
+    long megabyte = 1024 * 1024;
+    Assert.assertEquals(100 * megabyte, SnowflakeInputFormat.getAutoSplitSize(2000 * megabyte, 10, 2));
+    // rounded up, so that there are no more splits than task slots in all waves
+    Assert.assertEquals(100 * megabyte + 1, SnowflakeInputFormat.getAutoSplitSize(2000 * megabyte + 1, 20, 1));
+    // within the limits of MAX_FILE_SIZE
+    Assert.assertEquals(16 * megabyte, SnowflakeInputFormat.getAutoSplitSize(0, 10, 2));
+    Assert.assertEquals(5 * 1024 * megabyte, SnowflakeInputFormat.getAutoSplitSize(Long.MAX_VALUE / 2, 1, 1));
+  }
+
+  @Test
+  public void testGetTaskSlots() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("spark.executor.instances", "10");
+    properties.put("spark.executor.cores", "4");
+    Assert.assertEquals(40, SnowflakeInputFormat.getTaskSlots(properties::get));
+
+    properties.put("spark.dynamicAllocation.enabled", "true");
+    properties.put("spark.dynamicAllocation.maxExecutors", "20");
+    Assert.assertEquals(80, SnowflakeInputFormat.getTaskSlots(properties::get));
+
+    properties.clear();
+    properties.put("mapreduce.job.running.map.limit", "16");
+    Assert.assertEquals(16, SnowflakeInputFormat.getTaskSlots(properties::get));
+
+    properties.clear();
+    Assert.assertEquals(Runtime.getRuntime().availableProcessors(),
+                        SnowflakeInputFormat.getTaskSlots(properties::get));
+  }
+
+  private static List<List<String>> getNames(List<SnowflakeSplit> splits) {
+    return splits.stream()
+      .map(split -> split.getStageFiles().stream().map(StageFile::getName).collect(Collectors.toList()))
+      .collect(Collectors.toList());
+  }
+}
@@ -17,11 +17,16 @@
 package io.cdap.plugin.snowflake.source.batch;
 
 import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
 import io.cdap.plugin.snowflake.Constants;
 import io.cdap.plugin.snowflake.ValidationAssertions;
+import org.junit.Assert;
 import org.junit.Test;
 
-import java.util.HashMap;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -31,7 +36,7 @@ public class SnowflakeMapToRecordTransformerTest {
 
   @Test
   public void transform() {
-    Map<String, String> row = new HashMap<>();
+    Map<String, String> row = new LinkedHashMap<>();
     row.put("COLUMN_NUMBER", "101");
     row.put("COLUMN_DECIMAL", "102");
     row.put("COLUMN_NUMERIC", "103");
@@ -50,8 +55,8 @@ public class SnowflakeMapToRecordTransformerTest {
     row.put("COLUMN_CHARACTER", "2");
     row.put("COLUMN_STRING", "text_115");
     row.put("COLUMN_TEXT", "text_116");
-    row.put("COLUMN_BINARY", "text_117");
-    row.put("COLUMN_VARBINARY", "text_118");
+    row.put("COLUMN_BINARY", "746578745F313137");
+    row.put("COLUMN_VARBINARY", "746578745F313138");
     row.put("COLUMN_BOOLEAN", "true");
     row.put("COLUMN_DATE", "2019-01-01");
     row.put("COLUMN_DATETIME", "2019-01-01T01:01:01+00:00");
@@ -68,8 +73,46 @@ public class SnowflakeMapToRecordTransformerTest {
     SnowflakeMapToRecordTransformer transformer =
       new SnowflakeMapToRecordTransformer(Constants.TEST_TABLE_SCHEMA);
 
-    StructuredRecord actual = transformer.transform(row);
+    List<String> values = new ArrayList<>(row.values());
+    StructuredRecord actual = transformer.transform(
+      new SnowflakeRow(row.keySet().toArray(new String[0]), values::get));
 
     ValidationAssertions.assertTestTableResults(Constants.TEST_TABLE_EXPECTED, actual);
   }
+
+  @Test
+  public void transformNullAndAbsentColumns() {
+    Schema schema = Schema.recordOf(
+      "data",
+      Schema.Field.of("ID", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("NAME", Schema.nullableOf(Schema.of(Schema.Type.STRING))),
+      Schema.Field.of("PRICE", Schema.nullableOf(Schema.of(Schema.Type.DOUBLE))));
+    String[] values = {"1.5", null, "ignored"};
+
+    SnowflakeMapToRecordTransformer transformer = new SnowflakeMapToRecordTransformer(schema);
+    StructuredRecord actual = transformer.transform(
+      new SnowflakeRow(new String[]{"PRICE", "NAME", "EXTRA"}, i -> values[i]));
+
+    Assert.assertNull(actual.get("ID"));
+    Assert.assertNull(actual.get("NAME"));
+    Assert.assertEquals(1.5d, actual.<Double>get("PRICE"), 0);
+  }
+
+  @Test
+  public void transformNarrowNumericTypes() {
+    Schema schema = Schema.recordOf(
+      "data",
+      Schema.Field.of("INT", Schema.of(Schema.Type.INT)),
+      Schema.Field.of("LONG", Schema.of(Schema.Type.LONG)),
+      Schema.Field.of("DECIMAL", Schema.decimalOf(18, 2)));
+    String[] values = {"-123456789", "123456789012345678", "-1234.5"};
+
+    SnowflakeMapToRecordTransformer transformer = new SnowflakeMapToRecordTransformer(schema);
+    StructuredRecord actual = transformer.transform(
+      new SnowflakeRow(new String[]{"INT", "LONG", "DECIMAL"}, i -> values[i]));
+
+    Assert.assertEquals(-123456789, (int) actual.<Integer>get("INT"));
+    Assert.assertEquals(123456789012345678L, (long) actual.<Long>get("LONG"));
+    Assert.assertEquals(new BigDecimal("-1234.50"), actual.getDecimal("DECIMAL"));
+  }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import io.cdap.plugin.snowflake.common.util.ResumableInputStream;
+import org.apache.hadoop.mapreduce.Counter;
+import org.apache.hadoop.mapreduce.TaskAttemptContext;
+import org.apache.hadoop.mapreduce.counters.GenericCounter;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link SnowflakeRecordReader}
+ */
+public class SnowflakeRecordReaderTest {
+
+  @Test
+  public void testReadProgressAndCounters() throws IOException {
+    byte[] first = "ID\n1\n2\n".getBytes(StandardCharsets.UTF_8);
+    byte[] second = "ID\n3\n".getBytes(StandardCharsets.UTF_8);
+    SnowflakeSourceAccessor accessor = Mockito.mock(SnowflakeSourceAccessor.class);
+    mockStageFile(accessor, "data_0", first);
+    mockStageFile(accessor, "data_1", second);
+    Counter rows = new GenericCounter();
+    Counter bytes = new GenericCounter();
+    TaskAttemptContext context = Mockito.mock(TaskAttemptContext.class);
+    Mockito.when(context.getCounter(SnowflakeInputFormat.COUNTER_GROUP, SnowflakeInputFormat.COUNTER_ROWS_READ))
+      .thenReturn(rows);
+    Mockito.when(context.getCounter(SnowflakeInputFormat.COUNTER_GROUP,
+                                    SnowflakeInputFormat.COUNTER_STAGE_BYTES_READ))
+      .thenReturn(bytes);
+    List<StageFile> stageFiles = Arrays.asList(new StageFile("data_0", first.length),
+                                               new StageFile("data_1", second.length));
+
+    List<String> values = new ArrayList<>();
+    try (SnowflakeRecordReader reader = new SnowflakeRecordReader(stageFiles, accessor)) {
+      reader.initialize(new SnowflakeSplit(stageFiles), context);
+      while (reader.nextKeyValue()) {
+        values.add(reader.getCurrentValue().get(0));
+        Assert.assertTrue(reader.getProgress() > 0);
+      }
+      Assert.assertEquals(1, reader.getProgress(), 0);
+    }
+
+    Assert.assertEquals(Arrays.asList("1", "2", "3"), values);
+    Assert.assertEquals(3, rows.getValue());
+    Assert.assertEquals(first.length + second.length, bytes.getValue());
+    // stage files are kept for retries of the task, until the run finishes
+    Mockito.verify(accessor, Mockito.never()).removeStage(Mockito.anyString());
+  }
+
+  @Test
+  public void testNextFileOpenedWhileCurrentIsRead() throws Exception {
+    byte[] first = "ID\n1\n".getBytes(StandardCharsets.UTF_8);
+    byte[] second = "ID\n2\n".getBytes(StandardCharsets.UTF_8);
+    SnowflakeSourceAccessor accessor = Mockito.mock(SnowflakeSourceAccessor.class);
+    mockStageFile(accessor, "data_0", first);
+    ResumableInputStream secondFile = mockStageFile(accessor, "data_1", second);
+    CountDownLatch secondOpened = new CountDownLatch(1);
+    Mockito.when(accessor.buildCsvTokenizer(secondFile, "data_1")).thenAnswer(invocation -> {
+      secondOpened.countDown();
+      return new CSVTokenizer((InputStream) invocation.getArguments()[0]);
+    });
+    List<StageFile> stageFiles = Arrays.asList(new StageFile("data_0", first.length),
+                                               new StageFile("data_1", second.length));
+
+    List<String> values = new ArrayList<>();
+    try (SnowflakeRecordReader reader = new SnowflakeRecordReader(stageFiles, accessor)) {
+      reader.initialize(new SnowflakeSplit(stageFiles), mockContext());
+      // no record of the first file is read yet
+      Assert.assertTrue(secondOpened.await(10, TimeUnit.SECONDS));
+      while (reader.nextKeyValue()) {
+        values.add(reader.getCurrentValue().get(0));
+      }
+    }
+
+    Assert.assertEquals(Arrays.asList("1", "2"), values);
+    Mockito.verify(accessor, Mockito.times(1)).buildCsvTokenizer(secondFile, "data_1");
+  }
+
+  @Test
+  public void testNextFileClosedOnClose() throws Exception {
+    byte[] first = "ID\n1\n".getBytes(StandardCharsets.UTF_8);
+    byte[] second = "ID\n2\n".getBytes(StandardCharsets.UTF_8);
+    SnowflakeSourceAccessor accessor = Mockito.mock(SnowflakeSourceAccessor.class);
+    mockStageFile(accessor, "data_0", first);
+    ResumableInputStream secondFile = mockStageFile(accessor, "data_1", second);
+    List<StageFile> stageFiles = Arrays.asList(new StageFile("data_0", first.length),
+                                               new StageFile("data_1", second.length));
+
+    try (SnowflakeRecordReader reader = new SnowflakeRecordReader(stageFiles, accessor)) {
+      reader.initialize(new SnowflakeSplit(stageFiles), mockContext());
+      Assert.assertTrue(reader.nextKeyValue());
+    }
+
+    try {
+      secondFile.read();
+      Assert.fail("Next file was not closed.");
+    } catch (IOException e) {
+      Assert.assertEquals("Stream is closed.", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testNextFileFailureRethrown() throws Exception {
+    byte[] first = "ID\n1\n".getBytes(StandardCharsets.UTF_8);
+    SnowflakeSourceAccessor accessor = Mockito.mock(SnowflakeSourceAccessor.class);
+    mockStageFile(accessor, "data_0", first);
+    ResumableInputStream secondFile = mockStageFile(accessor, "data_1", new byte[0]);
+    Mockito.when(accessor.buildCsvTokenizer(secondFile, "data_1")).thenThrow(new IOException("Not in GZIP format"));
+    List<StageFile> stageFiles = Arrays.asList(new StageFile("data_0", first.length),
+                                               new StageFile("data_1", 0));
+
+    try (SnowflakeRecordReader reader = new SnowflakeRecordReader(stageFiles, accessor)) {
+      reader.initialize(new SnowflakeSplit(stageFiles), mockContext());
+      Assert.assertTrue(reader.nextKeyValue());
+      reader.nextKeyValue();
+      Assert.fail("Failure to open the next file was not rethrown.");
+    } catch (IOException e) {
+      Assert.assertEquals("Not in GZIP format", e.getMessage());
+    }
+  }
+
+  private static TaskAttemptContext mockContext() {
+    TaskAttemptContext context = Mockito.mock(TaskAttemptContext.class);
+    Mockito.when(context.getCounter(Mockito.anyString(), Mockito.anyString())).thenReturn(new GenericCounter());
+    return context;
+  }
+
+  private static ResumableInputStream mockStageFile(SnowflakeSourceAccessor accessor, String name, byte[] content)
+    throws IOException {
+    ResumableInputStream stageFile = new ResumableInputStream(() -> new ByteArrayInputStream(content), 0, name);
+    Mockito.when(accessor.openStageFile(name)).thenReturn(stageFile);
+    Mockito.when(accessor.buildCsvTokenizer(stageFile, name))
+      .thenAnswer(invocation -> new CSVTokenizer((InputStream) invocation.getArguments()[0]));
+    return stageFile;
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import io.cdap.cdap.api.data.format.StructuredRecord;
+import io.cdap.cdap.api.data.schema.Schema;
+import org.apache.parquet.example.data.Group;
+import org.apache.parquet.example.data.simple.SimpleGroupFactory;
+import org.apache.parquet.hadoop.metadata.CompressionCodecName;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.MessageTypeParser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for {@link SnowflakeSourceAccessor}
+ */
+public class SnowflakeSourceAccessorTest {
+  private static final String STAGE_SPLIT = "cdap_stage/result1/data_0_0_0.csv.gz";
+
+  @Test
+  public void testSpoolDirectoryRemovedOnClose() throws Exception {
+    byte[] data = "ID\n1\n".getBytes(StandardCharsets.UTF_8);
+    Path directory;
+
+    try (SpoolFile spoolFile = SnowflakeSourceAccessor.spool(SpoolFile.create(STAGE_SPLIT),
+                                                             new ByteArrayInputStream(data))) {
+      directory = spoolFile.getPath().getParent();
+      Assert.assertEquals("data_0_0_0.csv.gz", spoolFile.getPath().getFileName().toString());
+      Assert.assertEquals(data.length, spoolFile.getLength());
+      Assert.assertArrayEquals(data, Files.readAllBytes(spoolFile.getPath()));
+    }
+
+    Assert.assertFalse(Files.exists(directory));
+  }
+
+  @Test
+  public void testSpoolDirectoryRemovedOnFailure() throws Exception {
+    SpoolFile spoolFile = SpoolFile.create(STAGE_SPLIT);
+    InputStream failingStream = new InputStream() {
+      @Override
+      public int read() throws IOException {
+        throw new IOException("Download failed");
+      }
+    };
+    // part of the file is written before the download fails
+    InputStream stream = new SequenceInputStream(new ByteArrayInputStream(new byte[1024]), failingStream);
+
+    try {
+      SnowflakeSourceAccessor.spool(spoolFile, stream);
+      Assert.fail("Download failure was not rethrown.");
+    } catch (IOException e) {
+      Assert.assertEquals("Download failed", e.getMessage());
+      Assert.assertFalse(Files.exists(spoolFile.getPath().getParent()));
+    }
+  }
+
+  @Test
+  public void testReadSpooledParquetFile() throws Exception {
+    MessageType parquetSchema = MessageTypeParser.parseMessageType(
+      "message schema {\n" +
+        "  optional int64 ID (DECIMAL(18,0));\n" +
+        "  optional binary NAME (UTF8);\n" +
+        "}");
+    Schema schema = Schema.recordOf(
+      "output",
+      Schema.Field.of("ID", Schema.nullableOf(Schema.of(Schema.Type.LONG))),
+      Schema.Field.of("NAME", Schema.nullableOf(Schema.of(Schema.Type.STRING))));
+    SimpleGroupFactory factory = new SimpleGroupFactory(parquetSchema);
+    List<Group> rows = new ArrayList<>();
+    for (int i = 0; i < 10_000; i++) {
+      rows.add(factory.newGroup().append("ID", (long) i).append("NAME", "name_" + i));
+    }
+    // several row groups, so that the reader seeks in the file
+    byte[] data = ParquetTestFiles.write(parquetSchema, CompressionCodecName.SNAPPY, 16 * 1024, rows);
+    Path directory;
+
+    try (SpoolFile spoolFile = SnowflakeSourceAccessor.spool(SpoolFile.create(STAGE_SPLIT),
+                                                             new ByteArrayInputStream(data));
+         ParquetStageFileReader reader = new ParquetStageFileReader(new LocalInputFile(spoolFile.getPath()),
+                                                                    schema)) {
+      directory = spoolFile.getPath().getParent();
+      for (int i = 0; i < rows.size(); i++) {
+        StructuredRecord record = reader.next();
+        Assert.assertNotNull(record);
+        Assert.assertEquals(i, (long) record.get("ID"));
+        Assert.assertEquals("name_" + i, record.get("NAME"));
+      }
+      Assert.assertNull(reader.next());
+    }
+
+    Assert.assertFalse(Files.exists(directory));
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2020 Cask Data, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package io.cdap.plugin.snowflake.source.batch;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests for {@link StageCompression}
+ */
+public class StageCompressionTest {
+
+  private static final String CSV = "COLUMN_A,COLUMN_B\n1,\"text, quoted\"\n2,\n";
+
+  @Test
+  public void testDecompress() throws IOException {
+    assertDecompressed(StageCompression.GZIP, compress(GZIPOutputStream::new));
+    assertDecompressed(StageCompression.ZSTD, compress(ZstdOutputStream::new));
+    assertDecompressed(StageCompression.DEFLATE, compress(DeflaterOutputStream::new));
+    assertDecompressed(StageCompression.RAW_DEFLATE,
+                       compress(outputStream -> new DeflaterOutputStream(outputStream, new Deflater(6, true))));
+    assertDecompressed(StageCompression.NONE, CSV.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testDecompressBrotli() throws IOException {
+    // window bits, uncompressed meta-block of 5 bytes and empty last meta-block
+    byte[] compressed = {0x40, 0x00, 0x10, 'h', 'e', 'l', 'l', 'o', 0x03};
+
+    Assert.assertEquals("hello", read(StageCompression.BROTLI.decompress(new ByteArrayInputStream(compressed))));
+  }
+
+  private static void assertDecompressed(StageCompression compression, byte[] compressed) throws IOException {
+    Assert.assertEquals(compression.getValue(), CSV,
+                        read(compression.decompress(new ByteArrayInputStream(compressed))));
+  }
+
+  private static String read(InputStream inputStream) throws IOException {
+    try (InputStream stream = inputStream) {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      byte[] buffer = new byte[7];
+      int read;
+      while ((read = stream.read(buffer)) > 0) {
+        outputStream.write(buffer, 0, read);
+      }
+      return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static byte[] compress(Compressor compressor) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (OutputStream stream = compressor.wrap(outputStream)) {
+      stream.write(CSV.getBytes(StandardCharsets.UTF_8));
+    }
+    return outputStream.toByteArray();
+  }
+
+  private interface Compressor {
+    OutputStream wrap(OutputStream outputStream) throws IOException;
+  }
+}